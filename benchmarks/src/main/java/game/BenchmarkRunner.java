@@ -0,0 +1,45 @@
+package game;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The BenchmarkRunner class runs every benchmark of this module with the GC
+ * profiler attached, so each result also reports the bytes allocated per
+ * operation, and writes the results as JSON. Keeping that file next to the
+ * sources as the baseline lets a later run be compared against it, for example
+ * on jmh.morethan.io:
+ *
+ * <pre>
+ * mvn -B package
+ * java -jar benchmarks/target/benchmarks.jar benchmarks/baseline.json
+ * </pre>
+ *
+ * The plain JMH command line still works for single benchmarks:
+ * {@code java -cp benchmarks/target/benchmarks.jar org.openjdk.jmh.Main Tick -prof gc}.
+ */
+public class BenchmarkRunner {
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args An optional path for the JSON results, by default
+	 *             jmh-result.json in the working directory, and an optional
+	 *             regular expression selecting the benchmarks to run.
+	 * @throws RunnerException If JMH fails to run a benchmark.
+	 */
+	public static void main(String[] args) throws RunnerException {
+		String result = args.length > 0 ? args[0] : "jmh-result.json";
+		String include = args.length > 1 ? args[1] : "game\\..*Benchmark";
+		Options options = new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result)
+				.build();
+		new Runner(options).run();
+	}
+}
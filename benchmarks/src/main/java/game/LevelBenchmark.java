@@ -0,0 +1,105 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The LevelBenchmark class measures what it costs to build and check the
+ * chunks of a level: generating one with and without its reachability check,
+ * and running the oracle alone for a yes or no from rest, for the check from
+ * the previous chunk's exit the generator runs, and for the fewest jumps. Each
+ * invocation moves on to the next chunk index, following the chunk before it
+ * as in a game, so the layouts keep changing while the oracle's tables stay
+ * warm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LevelBenchmark {
+	private static final int WIDTH = 800, HEIGHT = 600; // Size of the playing field
+	private static final int CHUNKS = 64; // Chunks prepared for the oracle benchmarks
+
+	private final ProceduralLevelGenerator generator = new ProceduralLevelGenerator(); // Builds the chunks
+	private final ProceduralLevelGenerator unchecked = new ProceduralLevelGenerator(false); // Builds them unchecked
+	private final ReachabilityOracle oracle = new ReachabilityOracle(WIDTH, HEIGHT); // Checks them
+	private final LevelChunk[] chunks = new LevelChunk[CHUNKS]; // Level 0 chunks
+	private long index; // Next chunk to build or check
+	private LevelChunk previous, previousUnchecked; // The chunks built last, which the next ones follow
+
+	/**
+	 * Builds the chunks the oracle benchmarks check.
+	 */
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < CHUNKS; i++) {
+			chunks[i] = generator.generate(1, 0, i, i == 0 ? null : chunks[i - 1], WIDTH, HEIGHT);
+		}
+	}
+
+	/**
+	 * Generates the next chunk of level 0, checked before it is returned.
+	 *
+	 * @return The chunk.
+	 */
+	@Benchmark
+	public LevelChunk generate() {
+		previous = generator.generate(1, 0, index++, previous, WIDTH, HEIGHT);
+		return previous;
+	}
+
+	/**
+	 * Generates the next chunk of level 0 without checking it.
+	 *
+	 * @return The chunk.
+	 */
+	@Benchmark
+	public LevelChunk generateUnchecked() {
+		previousUnchecked = unchecked.generate(1, 0, index++, previousUnchecked, WIDTH, HEIGHT);
+		return previousUnchecked;
+	}
+
+	/**
+	 * Checks whether the next prepared chunk can be cleared from rest.
+	 *
+	 * @return true if it can.
+	 */
+	@Benchmark
+	public boolean isClearable() {
+		return oracle.isClearable(chunks[(int) (index++ % CHUNKS)]);
+	}
+
+	/**
+	 * Checks the next prepared chunk from the exit of the one before it, as the
+	 * checked generator does.
+	 *
+	 * @return The states at its end, or null.
+	 */
+	@Benchmark
+	public long[] findExit() {
+		int i = (int) (index++ % (CHUNKS - 1)) + 1;
+		return oracle.findExit(chunks[i - 1], chunks[i]);
+	}
+
+	/**
+	 * Finds the fewest jumps through the next prepared chunk.
+	 *
+	 * @return The fewest jumps.
+	 */
+	@Benchmark
+	public int minJumps() {
+		return oracle.minJumps(chunks[(int) (index++ % CHUNKS)]);
+	}
+}
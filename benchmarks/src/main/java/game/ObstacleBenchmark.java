@@ -0,0 +1,69 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ObstacleBenchmark class measures moving a single wall or cheese the way
+ * their move() methods do it, outside of any grid or store. Each obstacle jumps
+ * back to the right edge once it has left the screen, so every invocation does
+ * the same work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ObstacleBenchmark {
+	private Wall wall; // The wall being moved
+	private Cheese cheese; // The cheese being moved and turned
+
+	/**
+	 * Places both obstacles at the right edge of an 800 pixel screen.
+	 */
+	@Setup
+	public void setUp() {
+		wall = new Wall(new Point(800, 0), true);
+		cheese = new Cheese(Cheese.createShape(), new Point(770, 300), 0);
+		cheese.setRotateLeft(true);
+	}
+
+	/**
+	 * Moves the wall one tick to the left.
+	 *
+	 * @return The new x coordinate of the wall.
+	 */
+	@Benchmark
+	public double wallMove() {
+		wall.move();
+		if (wall.offScreen(800)) {
+			wall.setPositionX(800);
+		}
+		return wall.getPositionX();
+	}
+
+	/**
+	 * Moves and turns the cheese one tick.
+	 *
+	 * @return The new x coordinate of the cheese.
+	 */
+	@Benchmark
+	public double cheeseMove() {
+		cheese.move();
+		if (cheese.offScreen()) {
+			cheese.setPositionX(770);
+		}
+		return cheese.getPositionX();
+	}
+}
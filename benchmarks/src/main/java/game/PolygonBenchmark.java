@@ -0,0 +1,130 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The PolygonBenchmark class measures the geometry every tick leans on:
+ * building the world points of a polygon, testing points against it and
+ * testing two polygons for a collision. The shapes are the ones the game uses,
+ * a mouse, a cheese and a wall.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PolygonBenchmark {
+	private static final int PROBES = 64; // Points tested per contains() invocation
+
+	private Mouse mouse; // The player, at its starting position
+	private Cheese cheese; // A cheese that is rotated every invocation
+	private Wall touchingWall; // A wall overlapping the mouse
+	private Wall distantWall; // A wall far away from the mouse
+	private final double[] probeX = new double[PROBES]; // Points around the cheese, about half inside
+	private final double[] probeY = new double[PROBES];
+	private final boolean[] inside = new boolean[PROBES]; // Results of the batched test
+
+	/**
+	 * Builds the shapes and the probe points.
+	 */
+	@Setup
+	public void setUp() {
+		Simulation simulation = new Simulation(800, 600, 42);
+		mouse = simulation.getMouse();
+		cheese = new Cheese(Cheese.createShape(), new Point(400, 300), 0);
+		touchingWall = new Wall(new Point(90, 200), true);
+		distantWall = new Wall(new Point(600, 200), true);
+		GameRandom random = new GameRandom(42);
+		for (int i = 0; i < PROBES; i++) {
+			probeX[i] = cheese.getMinX() + random.nextDouble() * (cheese.getMaxX() - cheese.getMinX());
+			probeY[i] = cheese.getMinY() + random.nextDouble() * (cheese.getMaxY() - cheese.getMinY());
+		}
+	}
+
+	/**
+	 * Rotates the cheese and asks for its points, the way the original paint code
+	 * did every frame.
+	 *
+	 * @return The world points of the cheese.
+	 */
+	@Benchmark
+	public Point[] getPoints() {
+		cheese.rotate(1);
+		return cheese.getPoints();
+	}
+
+	/**
+	 * Rotates the cheese and tests every probe point against it.
+	 *
+	 * @return The number of probe points inside the cheese.
+	 */
+	@Benchmark
+	public int contains() {
+		cheese.rotate(1);
+		int inside = 0;
+		for (int i = 0; i < PROBES; i++) {
+			if (cheese.contains(probeX[i], probeY[i])) {
+				inside++;
+			}
+		}
+		return inside;
+	}
+
+	/**
+	 * Rotates the cheese and tests every probe point against it in one batched
+	 * call.
+	 *
+	 * @return The number of probe points inside the cheese.
+	 */
+	@Benchmark
+	public int containsBatch() {
+		cheese.rotate(1);
+		return cheese.contains(probeX, probeY, PROBES, inside);
+	}
+
+	/**
+	 * Tests the mouse against a wall it overlaps, so every separating axis has to
+	 * be checked.
+	 *
+	 * @return true, the shapes overlap.
+	 */
+	@Benchmark
+	public boolean collidesTouching() {
+		return touchingWall.collides(mouse);
+	}
+
+	/**
+	 * Tests the mouse against a wall across the screen.
+	 *
+	 * @return false, the shapes are apart.
+	 */
+	@Benchmark
+	public boolean collidesDistant() {
+		return distantWall.collides(mouse);
+	}
+
+	/**
+	 * Tests the mouse against the rotating cheese, which forces the general
+	 * separating axis test instead of the box fast path.
+	 *
+	 * @param blackhole Consumes the result.
+	 */
+	@Benchmark
+	public void collidesRotated(Blackhole blackhole) {
+		cheese.rotate(1);
+		blackhole.consume(cheese.collides(mouse));
+	}
+}
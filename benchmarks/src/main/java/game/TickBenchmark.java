@@ -0,0 +1,148 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The TickBenchmark class measures one whole headless Simulation.step() with a
+ * given number of extra wall pairs in play. The extra walls leave a wide gap in
+ * the middle of the screen, and a simple bot keeps the mouse hovering inside
+ * it, so the walls stream past the mouse and through the collision checks.
+ * Walls that scroll away are replaced at the right edge, keeping the density
+ * constant. The game's own walls still spawn every 300 ticks and now and then
+ * kill the mouse; the bot restarts at once and the layout is rebuilt, and
+ * that cost is part of the measurement just as it is part of a real session.
+ * Its chunks are the checked ones the game plays, but built once in setUp()
+ * and dealt out again in a cycle: the game builds them on the streamer's
+ * thread, not in a tick, and building them here would bury the tick under the
+ * oracle. LevelBenchmark measures that build on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TickBenchmark {
+	private static final int WIDTH = 800, HEIGHT = 600; // Size of the playing field
+	private static final double TOP_Y = -100; // Top walls end at y = 125
+	private static final double BOTTOM_Y = 480; // Bottom walls start at y = 405
+	private static final double HOVER_Y = 300; // The bot jumps whenever the mouse sinks below this
+	private static final double FIRST_X = 200; // Leftmost extra wall, well clear of the mouse
+	private static final int LEVELS = 16; // Levels chunks are built for; higher levels play the last one's
+	private static final int CHUNKS = 8; // Checked chunks built for each level
+
+	@Param({ "0", "4", "16", "64" })
+	public int wallPairs; // Extra wall pairs kept in play
+
+	private Simulation simulation; // The game being stepped
+	private boolean spaceHeld; // Whether the bot held the space bar last tick
+
+	/**
+	 * The CycledGenerator class deals out checked chunks built ahead of time,
+	 * CHUNKS for each level, one after the other and then from the start
+	 * again.
+	 */
+	private static final class CycledGenerator implements LevelGenerator {
+		private final LevelChunk[][] chunks = new LevelChunk[LEVELS][CHUNKS]; // Per level, in order
+
+		/**
+		 * Builds the chunks of every level with the game's checked generator,
+		 * each following the one before.
+		 *
+		 * @param seed The seed of the game.
+		 */
+		CycledGenerator(long seed) {
+			ProceduralLevelGenerator checked = new ProceduralLevelGenerator();
+			for (int level = 0; level < LEVELS; level++) {
+				LevelChunk previous = null;
+				for (int i = 0; i < CHUNKS; i++) {
+					previous = checked.generate(seed, level, i, previous, WIDTH, HEIGHT);
+					chunks[level][i] = previous;
+				}
+			}
+		}
+
+		/**
+		 * Deals out the next chunk built for a level.
+		 *
+		 * @param seed     The seed of the game.
+		 * @param level    The level.
+		 * @param index    The chunk index.
+		 * @param previous The chunk it follows; ignored.
+		 * @param width    Width of the playing field.
+		 * @param height   Height of the playing field.
+		 * @return The chunk.
+		 */
+		@Override
+		public LevelChunk generate(long seed, int level, long index, LevelChunk previous, int width, int height) {
+			return chunks[Math.max(0, Math.min(level, LEVELS - 1))][(int) (index % CHUNKS)];
+		}
+	}
+
+	/**
+	 * Starts a seeded game and fills it with the extra walls.
+	 */
+	@Setup
+	public void setUp() {
+		simulation = new Simulation(WIDTH, HEIGHT, 42, new CycledGenerator(42));
+		spaceHeld = false;
+		simulation.step(Input.SPACE); // Start the game
+		spaceHeld = true;
+		spread();
+	}
+
+	/**
+	 * Runs one tick with the bot's input, then tops the walls back up.
+	 *
+	 * @return The tick number, so the work cannot be discarded.
+	 */
+	@Benchmark
+	public long tick() {
+		// Press the space bar for one tick whenever the mouse sinks too low or died
+		boolean press = !spaceHeld
+				&& (simulation.needsReset() || simulation.getMouse().getPositionY() > HOVER_Y);
+		simulation.step(press ? Input.SPACE : 0);
+		spaceHeld = press;
+		if (wallPairs > 0 && simulation.getWalls().size() < 2 * wallPairs) {
+			if (simulation.getWalls().size() <= 2) {
+				spread(); // The game was reset
+			} else {
+				addPair(WIDTH);
+			}
+		}
+		return simulation.getTick();
+	}
+
+	/**
+	 * Places the extra wall pairs evenly between FIRST_X and the right edge.
+	 */
+	private void spread() {
+		double spacing = (WIDTH - FIRST_X) / Math.max(1, wallPairs);
+		for (int i = 0; i < wallPairs; i++) {
+			addPair(FIRST_X + i * spacing);
+		}
+	}
+
+	/**
+	 * Puts a top and a bottom wall into play, leaving the middle of the screen
+	 * open.
+	 *
+	 * @param x The x coordinate of the pair.
+	 */
+	private void addPair(double x) {
+		simulation.addWall(simulation.pool.obtainWall(x, TOP_Y, true));
+		simulation.addWall(simulation.pool.obtainWall(x, BOTTOM_Y, false));
+	}
+}
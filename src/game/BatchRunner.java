@@ -0,0 +1,309 @@
+package game;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * The BatchRunner class plays many games at once, headlessly, on every core of
+ * the machine. Each session is a Simulation of its own with its own seed and
+ * its own InputPolicy, so sessions share nothing and the batch splits across
+ * a ForkJoinPool. A session plays a single game: it starts at the first 'SPACE'
+ * and ends when the mouse dies or the tick limit is reached. The results of
+ * all sessions are folded into one Summary. Sessions lay out their walls with
+ * the same checked ProceduralLevelGenerator the game uses, so the batch plays
+ * the levels players see. They all share it: it keeps one oracle per thread,
+ * and building an oracle costs more than checking a chunk with it.
+ */
+public class BatchRunner {
+	public static final int WIDTH = 800, HEIGHT = 600; // Size of the playing field, as in the window
+	static final int SPLIT = 8; // Sessions a fork-join task plays itself instead of splitting further
+
+	private final ForkJoinPool pool; // Where the sessions run
+	private final Supplier<InputPolicy> policies; // Creates the player of each session
+	private final long maxTicks; // Ticks after which a game counts as survived
+	private final LevelGenerator generator = new ProceduralLevelGenerator(); // Lays out the walls of every session
+	private Leaderboard leaderboard; // Where every finished game is ranked, or null
+
+	/**
+	 * Constructs a batch runner.
+	 *
+	 * @param inPool     The pool to run the sessions in.
+	 * @param inPolicies Creates a fresh policy for every session.
+	 * @param inMaxTicks Ticks after which a game is stopped and counted as
+	 *                   survived.
+	 */
+	public BatchRunner(ForkJoinPool inPool, Supplier<InputPolicy> inPolicies, long inMaxTicks) {
+		pool = inPool;
+		policies = inPolicies;
+		maxTicks = inMaxTicks;
+	}
+
+	/**
+	 * Ranks every game played from now on on a leaderboard, under the name
+	 * "session N".
+	 *
+	 * @param inLeaderboard The leaderboard, or null to stop ranking.
+	 */
+	public void setLeaderboard(Leaderboard inLeaderboard) {
+		leaderboard = inLeaderboard;
+	}
+
+	/**
+	 * Plays a batch of sessions and waits for all of them.
+	 *
+	 * @param baseSeed The seed the session seeds are derived from; the same base
+	 *                 seed gives the same batch.
+	 * @param sessions The number of sessions to play.
+	 * @return The combined results.
+	 */
+	public Summary run(long baseSeed, int sessions) {
+		return pool.invoke(new Batch(baseSeed, 0, sessions));
+	}
+
+	/**
+	 * Derives the seed of one session. Neighbouring sessions get unrelated seeds,
+	 * and the seed does not depend on how the batch was split.
+	 *
+	 * @param baseSeed The seed of the batch.
+	 * @param session  The index of the session.
+	 * @return The seed of the session.
+	 */
+	public static long sessionSeed(long baseSeed, int session) {
+		return new GameRandom(baseSeed + session * 0x9E3779B97F4A7C15L).nextLong();
+	}
+
+	/**
+	 * Plays one game from the first 'SPACE' until the mouse dies.
+	 *
+	 * @param session The index of the session.
+	 * @param seed    The seed of the session.
+	 * @param summary Where to record the result.
+	 */
+	void play(int session, long seed, Summary summary) {
+		Simulation simulation = new Simulation(WIDTH, HEIGHT, seed, generator);
+		InputPolicy policy = policies.get();
+		long ticks = 0;
+		boolean started = false;
+		while (ticks < maxTicks) {
+			simulation.step(policy.nextInput(simulation));
+			if (!started) {
+				started = !simulation.isPaused(); // Survival counts from the first 'SPACE'
+				continue;
+			}
+			ticks++;
+			if (simulation.needsReset()) {
+				break; // The mouse died
+			}
+		}
+		summary.record(simulation.getCounter(), ticks, simulation.getCurrentLevel(), ticks >= maxTicks);
+		if (leaderboard != null) {
+			leaderboard.submit("session " + session, simulation.getCounter(), simulation.getCurrentLevel());
+		}
+	}
+
+	/**
+	 * The Batch class plays a range of sessions, splitting it in half until the
+	 * pieces are small enough to play directly.
+	 */
+	private class Batch extends RecursiveTask<Summary> {
+		private static final long serialVersionUID = 1L;
+		private final long baseSeed; // Seed of the whole batch
+		private final int from, to; // The sessions [from, to) of this piece
+
+		/**
+		 * Constructs a piece of the batch.
+		 *
+		 * @param inBaseSeed The seed of the whole batch.
+		 * @param inFrom     The first session of the piece.
+		 * @param inTo       One past the last session of the piece.
+		 */
+		Batch(long inBaseSeed, int inFrom, int inTo) {
+			baseSeed = inBaseSeed;
+			from = inFrom;
+			to = inTo;
+		}
+
+		/**
+		 * Plays the sessions of this piece, or splits it and combines the halves.
+		 *
+		 * @return The combined results of the piece.
+		 */
+		@Override
+		protected Summary compute() {
+			if (to - from <= SPLIT) {
+				Summary summary = new Summary();
+				for (int session = from; session < to; session++) {
+					play(session, sessionSeed(baseSeed, session), summary);
+				}
+				return summary;
+			}
+			int middle = (from + to) >>> 1;
+			Batch left = new Batch(baseSeed, from, middle);
+			left.fork();
+			Summary right = new Batch(baseSeed, middle, to).compute();
+			return left.join().add(right);
+		}
+	}
+
+	/**
+	 * The Summary class collects the results of many games: their scores, how
+	 * many ticks they survived and which level they reached.
+	 */
+	public static class Summary {
+		static final int LEVELS = 32; // Levels counted separately; higher ones share the last slot
+
+		private long games; // Number of games recorded
+		private long survived; // Games stopped by the tick limit rather than a death
+		private long scoreTotal; // Sum of the scores
+		private int scoreMax; // Highest score
+		private final LatencyHistogram survivalTicks = new LatencyHistogram(); // Ticks each game lasted
+		private final long[] levels = new long[LEVELS]; // Number of games ending on each level
+
+		/**
+		 * Records the result of one game.
+		 *
+		 * @param score        The final score.
+		 * @param ticks        The ticks the game lasted after the first 'SPACE'.
+		 * @param level        The level reached.
+		 * @param limitReached True if the tick limit ended the game.
+		 */
+		void record(int score, long ticks, int level, boolean limitReached) {
+			games++;
+			if (limitReached) {
+				survived++;
+			}
+			scoreTotal += score;
+			scoreMax = Math.max(scoreMax, score);
+			survivalTicks.record(ticks);
+			levels[Math.max(0, Math.min(level, LEVELS - 1))]++;
+		}
+
+		/**
+		 * Adds the results of another summary to this one.
+		 *
+		 * @param other The summary to add; it is left unchanged.
+		 * @return This summary.
+		 */
+		Summary add(Summary other) {
+			games += other.games;
+			survived += other.survived;
+			scoreTotal += other.scoreTotal;
+			scoreMax = Math.max(scoreMax, other.scoreMax);
+			survivalTicks.add(other.survivalTicks);
+			for (int i = 0; i < LEVELS; i++) {
+				levels[i] += other.levels[i];
+			}
+			return this;
+		}
+
+		/**
+		 * Retrieves the number of games recorded.
+		 *
+		 * @return The number of games.
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * Retrieves the number of games the tick limit stopped.
+		 *
+		 * @return The number of games survived to the limit.
+		 */
+		public long getSurvived() {
+			return survived;
+		}
+
+		/**
+		 * Retrieves the mean score.
+		 *
+		 * @return The mean score, or 0 if no game was recorded.
+		 */
+		public double getMeanScore() {
+			return games == 0 ? 0 : (double) scoreTotal / games;
+		}
+
+		/**
+		 * Retrieves the highest score.
+		 *
+		 * @return The highest score.
+		 */
+		public int getMaxScore() {
+			return scoreMax;
+		}
+
+		/**
+		 * Retrieves the distribution of the ticks survived.
+		 *
+		 * @return The histogram of survival ticks.
+		 */
+		public LatencyHistogram getSurvivalTicks() {
+			return survivalTicks;
+		}
+
+		/**
+		 * Retrieves the number of games that ended on a level.
+		 *
+		 * @param level The level; levels from LEVELS - 1 up are counted together.
+		 * @return The number of games.
+		 */
+		public long getGamesEndingOnLevel(int level) {
+			return levels[Math.max(0, Math.min(level, LEVELS - 1))];
+		}
+
+		/**
+		 * Writes a report of the batch.
+		 *
+		 * @param out Where to write the report.
+		 */
+		public void report(Writer out) {
+			PrintWriter writer = new PrintWriter(out);
+			writer.printf("games                %d (%d reached the tick limit)%n", games, survived);
+			writer.printf("score                mean %.2f, max %d%n", getMeanScore(), scoreMax);
+			writer.printf("survival ticks       mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n", survivalTicks.getMean(),
+					survivalTicks.getValueAtPercentile(50), survivalTicks.getValueAtPercentile(90),
+					survivalTicks.getValueAtPercentile(99), survivalTicks.getMax());
+			for (int i = 0; i < LEVELS; i++) {
+				if (levels[i] != 0) {
+					writer.printf("level %2d%s            %d%n", i, i == LEVELS - 1 ? "+" : " ", levels[i]);
+				}
+			}
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Runs a batch of hover bots and prints the summary.
+	 *
+	 * @param args The number of sessions (default 10000), the base seed (default
+	 *             1), the tick limit per game (default 100000), the bot's hover
+	 *             height (default 330) and the number of threads (default all
+	 *             cores).
+	 */
+	public static void main(String[] args) {
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		long maxTicks = args.length > 2 ? Long.parseLong(args[2]) : 100_000;
+		double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 330;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		BatchRunner runner = new BatchRunner(pool, () -> new HoverBot(threshold), maxTicks);
+		Leaderboard leaderboard = new Leaderboard();
+		runner.setLeaderboard(leaderboard);
+		long start = System.nanoTime();
+		Summary summary = runner.run(seed, sessions);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+		summary.report(new PrintWriter(System.out));
+		for (HighScoreTable.Entry entry : leaderboard.top(5)) {
+			System.out.printf("#%d %-14s %d (level %d)%n", leaderboard.rank(entry.getScore()), entry.getPlayer(),
+					entry.getScore(), entry.getLevel());
+		}
+		System.out.printf("%d games in %.2f s on %d threads (%.0f ticks/s)%n", sessions, seconds, threads,
+				summary.getSurvivalTicks().getMean() * sessions / seconds);
+	}
+}
@@ -2,17 +2,15 @@ package game;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.event.KeyEvent;
-import java.awt.event.KeyListener;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 /*
 * Main Class: make cheese based on random values
 * It extends polygon since it is a shape
 */
 
-public class Cheese extends Polygon implements GameElements, KeyListener {
-	private double x; // current x coordinate
-	private double y; // current y coordinate
-	
+public class Cheese extends Polygon implements GameElements {
 	private double rotationSpeed; // Rotation speed
 	private boolean rotateLeftPressed; // Flag for left rotation key
 	private boolean rotateRightPressed; // Flag for right rotation key
@@ -28,15 +26,64 @@ public class Cheese extends Polygon implements GameElements, KeyListener {
 	public Cheese(Point[] inShape, Point inPosition, double inRotation) {
 		super(inShape, inPosition, inRotation);// Call the superclass constructor
 		
-		// Initialize x and y coordinates
-		this.x = inPosition.getX();
-		this.y = inPosition.getY();		
-		
 		this.rotationSpeed = 5; //rotation speed
 		this.rotateLeftPressed = false;
 		this.rotateRightPressed = false;
 	}
 	
+	/**
+	 * Creates the shape of a cheese.
+	 *
+	 * @return An array of points defining the shape of the cheese.
+	 */
+	public static Point[] createShape() {
+		Point[] cheesePoints = { new Point(0, 20), // Bottom center
+				new Point(20, 0), // Top left
+				new Point(25, 20), // Top right
+				new Point(0, 20) };
+		return cheesePoints;
+	}
+	
+	/**
+	 * Puts a recycled cheese back into play at a new position, unrotated and with
+	 * no rotation keys held.
+	 *
+	 * @param x The x coordinate of the cheese.
+	 * @param y The y coordinate of the cheese.
+	 */
+	public void reinitialize(double x, double y) {
+		setTransform(x, y, 0);
+		this.rotateLeftPressed = false;
+		this.rotateRightPressed = false;
+	}
+	
+	/**
+	 * Writes the position, rotation and held rotation keys of the cheese, for a
+	 * replay keyframe.
+	 *
+	 * @param out Where to write the state.
+	 * @throws IOException If writing fails.
+	 */
+	void writeState(DataOutput out) throws IOException {
+		out.writeDouble(getPositionX());
+		out.writeDouble(getPositionY());
+		out.writeDouble(getRotation());
+		out.writeBoolean(rotateLeftPressed);
+		out.writeBoolean(rotateRightPressed);
+	}
+
+	/**
+	 * Restores the state written by writeState().
+	 *
+	 * @param in The buffer to read from, positioned at the state.
+	 */
+	void readState(ByteBuffer in) {
+		double x = in.getDouble(), y = in.getDouble(), rotation = in.getDouble();
+		setTransform(x, y, rotation);
+		rotateLeftPressed = in.get() != 0;
+		rotateRightPressed = in.get() != 0;
+	}
+	
 	/**
 	    * Paints the cheese object onto the specified graphics context.
 	    * @param brush The graphics context to paint onto.
@@ -46,19 +93,8 @@ public class Cheese extends Polygon implements GameElements, KeyListener {
 	public void paint(Graphics brush) {
 		// set the color of the object
 		brush.setColor(Color.yellow);
-		// get the dimensions/points of the object
-		Point[] points = getPoints();
-
-		// extract x and y coordinates from points array
-		int[] xPoints = new int[points.length];
-		int[] yPoints = new int[points.length];
-		for (int i = 0; i < points.length; i++) {
-			xPoints[i] = (int) points[i].getX();
-			yPoints[i] = (int) points[i].getY();
-		}
-
-		// use fillPolygon method to create the shape
-		brush.fillPolygon(xPoints, yPoints, points.length);
+		// use fillPolygon method to create the shape from the reused pixel arrays
+		brush.fillPolygon(getScreenX(), getScreenY(), getVertexCount());
 	} 
 	
 	/**
@@ -69,16 +105,23 @@ public class Cheese extends Polygon implements GameElements, KeyListener {
 	public void move() {
 		 // speed cheese is moving 
 		 
-		x -= 0.9; //moving the x-position to the left
+		setPositionX(getPositionX() - getScrollSpeed()); //moving the x-position to the left at the speed of the chunk it came with
 		
+		turn();
+	}
+	
+	/**
+	    * Rotates the cheese while the arrow keys are held. The simulation scrolls
+	    * all obstacles at once through the ObstacleStore and only calls this.
+	    */
+	
+	public void turn() {
 		if (rotateLeftPressed) {
 	        rotate(-5); // Rotate counter-clockwise
 	    }
 	    if (rotateRightPressed) {
 	        rotate(5); // Rotate clockwise
 	    }
-	    
-		position.setX(x); // update x coordinate
 	}
 	
 	/**
@@ -89,7 +132,7 @@ public class Cheese extends Polygon implements GameElements, KeyListener {
 	public boolean offScreen() {
 		boolean consumed = false; 
 		
-		if (x<=0) { 
+		if (getPositionX()<=0) { 
 			consumed = true; 
 		}
 		
@@ -97,48 +140,20 @@ public class Cheese extends Polygon implements GameElements, KeyListener {
 	}
 	
 	/**
-	 * Updates the state of the right and left arrow keys.
+	 * Sets whether the cheese should rotate counter-clockwise while it moves.
 	 * 
-	 * @param e The key that is being pressed
+	 * @param pressed True if the left arrow key is held down, false otherwise.
 	 */
-	@Override
-	public void keyPressed(KeyEvent e) {
-		int keyCode = e.getKeyCode();
-	    
-	    // Handle rotation keys
-	    switch (e.getKeyCode()) {
-	        case KeyEvent.VK_LEFT:
-	            rotateLeftPressed = true;
-	            break;
-	        case KeyEvent.VK_RIGHT:
-	            rotateRightPressed = true;
-	            break;
-	    }
+	public void setRotateLeft(boolean pressed) {
+		rotateLeftPressed = pressed;
 	}
 	
 	/**
-	 * Updates the state of the right and left arrow keys.
+	 * Sets whether the cheese should rotate clockwise while it moves.
 	 * 
-	 * @param e The key that is being released
+	 * @param pressed True if the right arrow key is held down, false otherwise.
 	 */
-	@Override
-	public void keyReleased(KeyEvent e) {
-		int keyCode = e.getKeyCode();
-	    switch (e.getKeyCode()) {
-	        case KeyEvent.VK_LEFT:
-	            rotateLeftPressed = false;
-	            break;
-	        case KeyEvent.VK_RIGHT:
-	            rotateRightPressed = false;
-	            break;
-	    }
-	}
-
-	@Override
-	public void keyTyped(KeyEvent e) {
-		// TODO Auto-generated method stub
-		
+	public void setRotateRight(boolean pressed) {
+		rotateRightPressed = pressed;
 	}
-
-
 }
@@ -0,0 +1,273 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The ChunkStreamer class builds the level chunks of one game ahead of time on
+ * a background thread, so the thread running the simulation only ever takes a
+ * finished chunk. The chunks travel through a bounded ring buffer with one
+ * producer and one consumer, like InputQueue: the background thread only moves
+ * the tail, the simulation only moves the head, so neither waits for the
+ * other. When the ring is full the background thread sleeps until a chunk is
+ * taken.
+ *
+ * The streamer guesses that the game stays on its level and builds the next
+ * chunks for it, each following the one built before. The simulation corrects
+ * that guess through prefetch() as soon as it knows better: when the level
+ * changes or the mouse dies, it names the chunk it will ask for next and the
+ * chunk that one follows, and the chunks queued before it are thrown away.
+ * When the game still asks for a chunk the streamer does not have, take()
+ * names it to the background thread and waits until it is built, so a checked
+ * generator's oracle never runs on the simulation's thread, not even on a
+ * miss. Only a streamer whose thread is not running leaves the chunk to the
+ * simulation; since generators are pure functions of their key and the
+ * previous chunk, the game gets the same walls either way.
+ */
+public class ChunkStreamer implements Runnable, AutoCloseable {
+	private static final long FULL_WAIT_NANOS = 1_000_000L; // Longest sleep while the ring is full
+	private static final long READY_WAIT_NANOS = 1_000_000L; // Longest sleep while waiting for a chunk
+
+	private final LevelGenerator generator; // Builds the chunks
+	private final long seed; // Seed of the game
+	private final int width, height; // Size of the playing field
+	private final LevelChunk[] chunks; // The ring buffer
+	private final int mask; // Capacity - 1, for wrapping indices
+	private final AtomicLong tail = new AtomicLong(); // Next slot the background thread fills
+	private final AtomicLong head = new AtomicLong(); // Next slot the simulation reads
+	private volatile Request request = new Request(0, 0, null); // The next chunk to build
+	private volatile boolean running; // Cleared to stop the background thread
+	private volatile Thread thread; // The background thread, once started
+	private volatile Thread waiter; // The simulation's thread while it waits in take(), or null
+	private long taken, missed; // Chunks handed out ready and chunks waited for (consumer only)
+
+	/**
+	 * The Request class names a chunk to build: its level and index, and the
+	 * chunk it follows. Requests are immutable, so the simulation hands them to
+	 * the background thread through one volatile field.
+	 */
+	private static final class Request {
+		private final int level; // Level of the chunk
+		private final long index; // Index of the chunk
+		private final LevelChunk previous; // The chunk it follows, or null at the start of a round
+
+		/**
+		 * Constructs a request.
+		 *
+		 * @param inLevel    Level of the chunk.
+		 * @param inIndex    Index of the chunk.
+		 * @param inPrevious The chunk it follows, or null at the start of a round.
+		 */
+		Request(int inLevel, long inIndex, LevelChunk inPrevious) {
+			level = inLevel;
+			index = inIndex;
+			previous = inPrevious;
+		}
+
+		/**
+		 * Checks whether this request names a chunk.
+		 *
+		 * @param inLevel    Level of the chunk.
+		 * @param inIndex    Index of the chunk.
+		 * @param inPrevious The chunk it follows.
+		 * @return true if it does, false otherwise.
+		 */
+		boolean names(int inLevel, long inIndex, LevelChunk inPrevious) {
+			return level == inLevel && index == inIndex && previous == inPrevious;
+		}
+	}
+
+	/**
+	 * Constructs a streamer for one game, starting at the first chunk of a round
+	 * at index 0 of level 0 unless prefetch() names another chunk before
+	 * start().
+	 *
+	 * @param inGenerator Builds the chunks.
+	 * @param inSeed      Seed of the game.
+	 * @param inWidth     Width of the playing field.
+	 * @param inHeight    Height of the playing field.
+	 * @param capacity    The number of chunks built ahead, rounded up to a power
+	 *                    of two.
+	 */
+	public ChunkStreamer(LevelGenerator inGenerator, long inSeed, int inWidth, int inHeight, int capacity) {
+		generator = inGenerator;
+		seed = inSeed;
+		width = inWidth;
+		height = inHeight;
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+		chunks = new LevelChunk[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Starts the background thread. Does nothing if it is already running.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		running = true;
+		thread = new Thread(this, "chunk-streamer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the background thread and waits for it. If the caller is interrupted
+	 * while waiting, it stops waiting and its interrupt flag is set again.
+	 */
+	@Override
+	public synchronized void close() {
+		running = false;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			try {
+				thread.join();
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Takes the chunk with the given key, waiting for the background thread to
+	 * build it if it is not ready. Chunks queued ahead of it are thrown away.
+	 * Only the simulation's thread may call this.
+	 *
+	 * @param level    The level.
+	 * @param index    The chunk index.
+	 * @param previous The chunk it follows, or null at the start of a round.
+	 * @return The chunk, or null if the background thread is not running; the
+	 *         caller must then build it itself.
+	 */
+	public LevelChunk take(int level, long index, LevelChunk previous) {
+		for (boolean waited = false;; waited = true) {
+			long h = head.get();
+			long t = tail.get();
+			while (h < t) {
+				int slot = (int) h & mask;
+				LevelChunk chunk = chunks[slot];
+				chunks[slot] = null; // Let it be collected
+				h++;
+				head.lazySet(h); // Frees the slot
+				if (chunk.matches(seed, level, index) && chunk.follows(previous)) {
+					if (waited) {
+						missed++;
+						waiter = null;
+					} else {
+						taken++;
+					}
+					wake();
+					return chunk;
+				}
+			}
+			if (!running) {
+				missed++;
+				waiter = null;
+				return null;
+			}
+			if (!waited) {
+				waiter = Thread.currentThread();
+				prefetch(level, index, previous); // Build this one next, whatever was asked for before
+				wake(); // The ring is empty now
+			}
+			LockSupport.parkNanos(this, READY_WAIT_NANOS); // Until the chunk is published, or a wake-up was missed
+		}
+	}
+
+	/**
+	 * Names the chunk the game will ask for next. Chunks queued ahead of it are
+	 * thrown away; if it is neither queued nor being built, the streamer starts
+	 * over from it. Only the simulation's thread may call this.
+	 *
+	 * @param level    The level.
+	 * @param index    The chunk index.
+	 * @param previous The chunk it follows, or null at the start of a round.
+	 */
+	public void prefetch(int level, long index, LevelChunk previous) {
+		long h = head.get();
+		long t = tail.get();
+		while (h < t) {
+			int slot = (int) h & mask;
+			if (chunks[slot].matches(seed, level, index) && chunks[slot].follows(previous)) {
+				return; // Already built
+			}
+			chunks[slot] = null;
+			h++;
+			head.lazySet(h);
+		}
+		if (!request.names(level, index, previous)) {
+			request = new Request(level, index, previous);
+			wake();
+		}
+	}
+
+	/**
+	 * Retrieves the number of chunks handed out ready. Only the simulation's
+	 * thread may call this.
+	 *
+	 * @return The number of chunks taken.
+	 */
+	public long getTaken() {
+		return taken;
+	}
+
+	/**
+	 * Retrieves the number of chunks that were asked for but not ready, whether
+	 * take() waited for them or left them to the caller. Only the simulation's
+	 * thread may call this.
+	 *
+	 * @return The number of misses.
+	 */
+	public long getMissed() {
+		return missed;
+	}
+
+	/**
+	 * The background thread: builds chunks in order for the level last asked
+	 * for, each following the one before, sleeping while the ring is full.
+	 */
+	@Override
+	public void run() {
+		Request current = null; // The request being worked on
+		int level = 0;
+		long index = 0;
+		LevelChunk previous = null;
+		while (running) {
+			Request wanted = request;
+			if (wanted != current) {
+				current = wanted;
+				level = wanted.level;
+				index = wanted.index;
+				previous = wanted.previous;
+			}
+			long t = tail.get();
+			if (t - head.get() > mask) {
+				LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+				continue;
+			}
+			LevelChunk chunk = generator.generate(seed, level, index, previous, width, height);
+			if (request != current) {
+				continue; // Asked for something else meanwhile
+			}
+			chunks[(int) t & mask] = chunk;
+			tail.lazySet(t + 1); // Publishes the chunk
+			Thread consumer = waiter;
+			if (consumer != null) {
+				LockSupport.unpark(consumer); // take() is waiting for a chunk
+			}
+			index++;
+			previous = chunk;
+		}
+	}
+
+	/**
+	 * Wakes the background thread if it sleeps on a full ring.
+	 */
+	private void wake() {
+		Thread producer = thread;
+		if (producer != null) {
+			LockSupport.unpark(producer);
+		}
+	}
+}
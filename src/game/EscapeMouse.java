@@ -9,343 +9,371 @@ NOTE: This class is the metaphorical "main method" of your program,
 */
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Random;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
- * Extending Game, EscapeMouse is the controller for this game.
+ * Extending Game, EscapeMouse is the window for this game. The game itself runs
+ * in a headless Simulation on its own thread, driven by a SimulationLoop that
+ * feeds it the keyboard state and publishes every tick as a FrameSnapshot.
+ * EscapeMouse only draws: each frame takes the newest snapshot and places
+ * everything between the last two ticks, so motion stays smooth at any display
+ * rate. It can also show a recorded game instead, at any playback rate.
  */
 class EscapeMouse extends Game {
-	static int counter = 0; // Counter for keeping track of the score
-	Mouse mouse; // Instance of the Mouse class
-	static boolean pauseCounter = true; // Flag to control whether the game counter is paused
-	static HighScore highScore; // Instance of HighScore class to track highest score
-	static Level level; // Instance of Level class to track game level
-	static int wallTime = 0; // Counter for tracking wall creation time
-	Cheese cheese; // Instance of Cheese class for collecting points
-	ArrayList<Cheese> cheeses; // List to hold Cheese objects
-	ArrayList<Wall> walls; // List to hold Wall objects
-	static boolean needsReset = false;// Boolean flag to indicate whether the game needs to be reset
-	private static EscapeMouse instance;
+	Simulation simulation; // The game logic this window observes; owned by the loop's thread once started
+	private final SimulationLoop loop; // Runs the simulation and publishes its ticks
+	private final ChunkStreamer chunks; // Builds the walls ahead of the simulation
+	private final InputQueue input = new InputQueue(256); // Key events from the event thread, drained every tick
+	private final InputLatencyProbe latency = new InputLatencyProbe(); // Times each jump from key to screen
+	private final Polygon[] shapes = { new Polygon(Simulation.createMouseShape(), new Point(0, 0), 0),
+			new Cheese(Cheese.createShape(), new Point(0, 0), 0), new Wall(new Point(0, 0), false) }; // One shape per FrameSnapshot kind, moved to each entity in turn
+	private static final Color[] COLORS = { Color.pink, Color.yellow, Color.cyan }; // One color per FrameSnapshot kind
+	private int shownScore = -1, shownHighScore = -1, shownLevel = -1, shownFps = -1; // Values the HUD text was built for
+	private String scoreText, highScoreText, levelText, fpsText; // HUD text, rebuilt only when its value changes
+	private String[] profileText = new String[0]; // Profiler overlay lines
+	private long profileTextTime; // When the profiler overlay was last rebuilt, in nanoseconds
+	private String[] latencyText = new String[0]; // Latency probe overlay lines
+	private long latencyTextTime; // When the latency overlay was last rebuilt, in nanoseconds
+	static final long PROFILE_REFRESH_NANOS = 500_000_000L; // How often the profiler overlay is rebuilt
+	static final Path PROFILE_FILE = Paths.get("escape-mouse-profile.txt"); // Where F4 dumps the profiler and latency reports
+	static final Path SCORES_FILE = Paths.get("escape-mouse-scores.dat"); // The persistent high score table
+	private HighScoreTable scores; // Best scores of every game played here, or null
 
 	/**
-	 * Constructor for EscapeMouse class. Initializes game window, creates player,
-	 * cheese, and wall objects, and adds key listener for player controls.
+	 * Constructor for EscapeMouse class. Initializes game window, creates the
+	 * simulation, and adds key listener for player controls.
 	 */
 	public EscapeMouse() {
-		super("ESCAPE MOUSE!", 800, 600); // Call superclass constructor to set up game window
-		this.setFocusable(true);
-		this.requestFocus();
-
-		// create the coordinates for the dimensions of the mouse
-		Point[] mousePoints = { new Point(400, 500), // Bottom center
-				new Point(400, 480), // Top left
-				new Point(420, 490), // Top right
-				new Point(400, 500) }; // Back to bottom center to close the shape };
-		// MOUSE: create the mouse
-		mouse = new Mouse(mousePoints, new Point(100, 300), 0, instance); // Initialize Mouse object
-		// CHEESE: create a cheese
-		cheeses = new ArrayList<>(); // Initialize ArrayList for storing Cheese objects
-		makeCheese(); // Generate initial Cheese object
-		// WAllS: create walls
-		walls = new ArrayList<>(); // Initialize ArrayList for storing Wall objects
-		makeWall(); // Generate initial set of walls
-		
-		// Add key listener for player controls
-		this.addKeyListener(mouse); 
-		this.addKeyListener(cheese);
-
+		this(null, 1);
 	}
 
 	/**
-	 * Creating a cheese. Generates a new Cheese object at a random position within
-	 * the game window.
+	 * Constructor for EscapeMouse class showing a recorded game. The keyboard
+	 * only controls the profiler while a replay runs.
+	 *
+	 * @param inReplay       The recorded game to show, or null to play live.
+	 * @param inPlaybackRate How much faster than real time the replay runs; 0.5 is
+	 *                       half speed, 4 is four times as fast.
 	 */
-	private void makeCheese() {
-		Random random = new Random(); // Initialize random number generator
-		int x = width - 30; // Set x-coordinate to be within game window width
-		int y = random.nextInt(height - 50); // Set y-coordinate to be within game window height
-
-		// Define the shape of the cheese
-		Point[] cheesePoints = { new Point(0, 20), // Bottom center
-				new Point(20, 0), // Top left
-				new Point(25, 20), // Top right
-				new Point(0, 20) };
+	public EscapeMouse(Replay inReplay, double inPlaybackRate) {
+		super("ESCAPE MOUSE!", 800, 600); // Call superclass constructor to set up game window
+		this.setFocusable(true);
+		this.requestFocus();
 
-		cheese = new Cheese(cheesePoints, new Point(x, y), 0); // Create new Cheese object
-		cheeses.add(cheese); // Add Cheese object to the list of cheeses
-	}
+		// Create the player, cheese and walls
+		if (inReplay == null) {
+			simulation = new Simulation(width, height);
+			loop = new SimulationLoop(simulation, input);
+		} else {
+			simulation = inReplay.newSimulation();
+			loop = new SimulationLoop(simulation, inReplay, inPlaybackRate,
+					inReplay.getRecording().getTickCount());
+		}
+		chunks = new ChunkStreamer(simulation.getLevelGenerator(), simulation.getSeed(), width, height, 4);
+		simulation.setChunkStreamer(chunks);
+		input.setLatencyProbe(latency);
+		simulation.setLatencyProbe(latency);
 
-	/**
-	 * Creating walls. Generates a new set of walls (top and bottom) at random
-	 * positions within the game window.
-	 */
-	private void makeWall() {
-		// Interface for generating wall height
-		interface WallHeightGenerator {
+		// Add key listener for player controls
+		this.addKeyListener(new KeyAdapter() {
 			/**
-			 * Generates the height for a wall.
-			 * 
-			 * @param random    The random number generator.
-			 * @param maxHeight The maximum height for the wall.
-			 * @return The generated height for the wall.
+			 * Queues the press of a game key for the next tick.
+			 *
+			 * @param e The key that is being pressed
 			 */
-			int generateHeight(Random random, int maxHeight);
-		}
+			@Override
+			public void keyPressed(KeyEvent e) {
+				int key = toInput(e.getKeyCode());
+				if (key != Input.NONE) {
+					input.offer(key, true, System.nanoTime());
+				}
+				if (e.getKeyCode() == KeyEvent.VK_F3) { // Toggle the profiler and its overlay
+					TickProfiler profiler = simulation.getProfiler();
+					profiler.setEnabled(!profiler.isEnabled());
+				} else if (e.getKeyCode() == KeyEvent.VK_F4) { // Dump the profiler report
+					dumpProfile();
+				} else if (e.getKeyCode() == KeyEvent.VK_F5) { // Toggle the jump latency probe
+					latency.setEnabled(!latency.isEnabled());
+				} else if (e.getKeyCode() == KeyEvent.VK_F6) { // Toggle uncapped frames to measure the achievable FPS
+					setUncapped(!isUncapped());
+				}
+			}
 
-		// Anonymous class implementing WallHeightGenerator interface
-		WallHeightGenerator heightGenerator = new WallHeightGenerator() {
 			/**
-			 * Generates the height for a wall.
-			 * 
-			 * @param random    The random number generator.
-			 * @param maxHeight The maximum height for the wall.
-			 * @return The generated height for the wall.
+			 * Queues the release of a game key for the next tick.
+			 *
+			 * @param e The key that is being released
 			 */
 			@Override
-			public int generateHeight(Random random, int maxHeight) {
-				return Wall.WALL_HEIGHT + random.nextInt(maxHeight - 50); // Generate random height for walls
+			public void keyReleased(KeyEvent e) {
+				int key = toInput(e.getKeyCode());
+				if (key != Input.NONE) {
+					input.offer(key, false, System.nanoTime());
+				}
 			}
-		};
-
-		Random random = new Random(); // Initialize random number generator
-		int gap = 170; // Gap between top and bottom walls
-
-		int wallHeight = heightGenerator.generateHeight(random, height);
-
-		// Make Top Wall
-		int topWallYOffset = random.nextInt(80); // Introduce slight variation
-		Point topPosition = new Point(width, topWallYOffset); // Position of top wall
-		Wall topWall = new Wall(topPosition, true); // Create top wall object
-		walls.add(topWall); // Add top wall to list of walls
+		});
+	}
 
-		// Make Bottom Wall
-		if (wallHeight + gap >= 600) {
-			Point bottomPosition = new Point(width, 500); // Position of bottom wall
-			Wall bottomWall = new Wall(bottomPosition, false); // Create bottom wall object
-			walls.add(bottomWall); // Add bottom wall to list of walls
-		} else {
-			Point bottomPosition = new Point(width, gap + wallHeight); // Position of bottom wall
-			Wall bottomWall = new Wall(bottomPosition, false); // Create bottom wall object
-			walls.add(bottomWall); // Add bottom wall to list of walls
+	/**
+	 * Translates a key code into the matching Input flag.
+	 *
+	 * @param keyCode The key code of a key event.
+	 * @return The Input flag for the key, or Input.NONE if the game ignores it.
+	 */
+	private static int toInput(int keyCode) {
+		switch (keyCode) {
+		case KeyEvent.VK_SPACE:
+			return Input.SPACE;
+		case KeyEvent.VK_LEFT:
+			return Input.LEFT;
+		case KeyEvent.VK_RIGHT:
+			return Input.RIGHT;
+		default:
+			return Input.NONE;
 		}
 	}
 
 	/**
-	 * Paint method for drawing the game. Renders all game elements including
-	 * player, cheese, walls, and score. Updates game state based on player input
-	 * and game logic.
+	 * Paint method for drawing the game. Takes the newest tick the simulation
+	 * published and renders all game elements including player, cheese, walls,
+	 * and score, each placed between that tick and the one before by how much of
+	 * a tick has passed since.
 	 * 
 	 * @param brush The graphics context to paint onto.
 	 */
 	public void paint(Graphics brush) {
+		if (loop == null) {
+			return; // The window can paint before the constructor has finished
+		}
+		FrameSnapshot snapshot = loop.getBuffer().latest();
+		double alpha = snapshot.getAlpha(System.nanoTime());
+		latency.painting(snapshot, alpha); // Counts a jump once this frame draws the mouse risen
+		long paintStart = simulation.getProfiler().begin();
+
 		brush.setColor(Color.black); // Set brush color to black
 		brush.fillRect(0, 0, width, height); // Fill the entire window with black color
 		brush.setColor(Color.white); // Set brush color to white
+		updateHud(snapshot);
 		// Display current score
-		brush.drawString("Score is " + (int) counter, 10, 10); // Render score at specified position
+		brush.drawString(scoreText, 10, 10); // Render score at specified position
 		// Display highest score
-		brush.drawString("High Score is " + HighScore.getHighestScore(), 10, 30); // Render highest score at specified
-																					// position
+		brush.drawString(highScoreText, 10, 30); // Render highest score at specified position
 		// Display current level
-		brush.drawString("Level " + Level.getCurrentLevel(), 10, 50); // Render current level at specified position
-		// Check if the game needs to be reset
-		if (needsReset) {
+		brush.drawString(levelText, 10, 50); // Render current level at specified position
+		// Display the frame rate the render loop achieves
+		brush.drawString(fpsText, 10, 70);
+		paintProfile(brush);
+		paintLatency(brush);
+		if (snapshot.isWaiting()) {
 			brush.drawString("Press 'SPACE' to Start", 300, 300);
-			resetGame(); // Reset the game
-		}else {
-
-		// Counter only runs when the game is active
-		if (!pauseCounter) {
-			counter = mouse.getSpaceCounter(); // Update game counter with player score
-			Level.updateLevel(counter); // Update game level based on score
-		}
-		
-		// Move the player
-		mouse.move(); // Update player position based on input
-		// Draw the player
-		mouse.paint(brush); // Render player at updated position
-		// CHEESE: move & repaint cheese
-		if (!cheeses.isEmpty()) { // Check if the cheeses list is not empty
-			this.addKeyListener(cheese);
-			Cheese currentCheese = cheeses.get(0); // Get current cheese object
-			currentCheese.move(); // Move cheese object
-			currentCheese.paint(brush); // Render cheese object
-
-			// Remove consumed cheese & generate new one
-			if (currentCheese.offScreen() || currentCheese.collides(mouse)) {
-				cheeses.remove(0); // Remove consumed cheese from list
-				makeCheese(); // Generate new cheese object
-				if (currentCheese.collides(mouse)) {
-					mouse.setSpaceCounter(5);
-
-				}
+		} else {
+			// Draw the player, the cheese and the walls, in that order
+			for (int i = 0; i < snapshot.getCount(); i++) {
+				int kind = snapshot.getKind(i);
+				Polygon shape = shapes[kind];
+				shape.setTransform(snapshot.getX(i, alpha), snapshot.getY(i, alpha), snapshot.getRotation(i, alpha));
+				brush.setColor(COLORS[kind]);
+				brush.fillPolygon(shape.getScreenX(), shape.getScreenY(), shape.getVertexCount());
 			}
 		}
-		// WALLS
-		wallTime++; // Increment wall creation timer
+		simulation.getProfiler().end(TickProfiler.Phase.PAINT, paintStart);
+	}
 
-		// Generate new wall every few seconds
-		if (wallTime % 300 == 0) {
-			makeWall(); // Generate new set of walls
+	/**
+	 * Draws the profiler overlay while the profiler is switched on. The text is
+	 * rebuilt at most twice a second so the overlay itself barely adds to what it
+	 * measures.
+	 *
+	 * @param brush The graphics context to paint onto.
+	 */
+	private void paintProfile(Graphics brush) {
+		TickProfiler profiler = simulation.getProfiler();
+		if (!profiler.isEnabled()) {
+			return;
 		}
-
-		// Move & paint walls using lambda expression
-		walls.removeIf(wall -> {
-			wall.move(); // Move wall object
-			if (wall.offScreen(width)) {
-				return true; // Remove wall from list if it's offscreen
-			} else {
-				wall.paint(brush); // Render wall object
-				return false;
-			}
-		});
-
-		// WALLS: check for collision with walls
-		for (Wall wall : walls) {
-			if (wall.collides(mouse)) {
-				needsReset = true;
-				break; // Exit the loop if collision detected to avoid unnecessary checks
+		long now = System.nanoTime();
+		if (now - profileTextTime >= PROFILE_REFRESH_NANOS) {
+			profileTextTime = now;
+			TickProfiler.Phase[] phases = TickProfiler.Phase.values();
+			String[] lines = new String[phases.length + 2];
+			for (int i = 0; i < phases.length; i++) {
+				LatencyHistogram h = profiler.getHistogram(phases[i]);
+				lines[i] = String.format("%-18s p50 %7.1f us  p99 %7.1f us", phases[i].getLabel(),
+						h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3);
 			}
+			lines[phases.length] = "collision tests " + profiler.getCollisionTests() + " / bounds tests "
+					+ profiler.getBoundsTests();
+			lines[phases.length + 1] = "allocated bytes " + profiler.getAllocatedBytes();
+			profileText = lines;
 		}
+		for (int i = 0; i < profileText.length; i++) {
+			brush.drawString(profileText[i], 500, 20 + 15 * i);
 		}
 	}
 
 	/**
-	 * Resets the game by clearing all cheeses and walls, resetting the mouse
-	 * position, and resetting the game counter and other game parameters.
+	 * Draws the jump latency overlay while the probe is switched on, rebuilding
+	 * the text at most twice a second like the profiler overlay.
+	 *
+	 * @param brush The graphics context to paint onto.
 	 */
-	private void resetGame() {
-		// Interface for resetting the game state
-		interface GameReset {
-			void reset(); // Method to reset the game state
+	private void paintLatency(Graphics brush) {
+		if (!latency.isEnabled()) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (now - latencyTextTime >= PROFILE_REFRESH_NANOS) {
+			latencyTextTime = now;
+			latencyText = new String[] { latencyLine("key -> tick", latency.getPressToTick()),
+					latencyLine("tick -> photon", latency.getTickToPhoton()),
+					latencyLine("key -> photon", latency.getPressToPhoton()) };
+		}
+		for (int i = 0; i < latencyText.length; i++) {
+			brush.drawString(latencyText[i], 500, 200 + 15 * i);
 		}
-		// Anonymous class implementing GameReset interface
-		GameReset gameReset = new GameReset() {
-			/**
-			 * Resets the game state.
-			 */
-			@Override
-			public void reset() {
-				// Clear all cheeses
-				cheeses.clear();
-				// Clear all walls
-				walls.clear();
-				// Reset mouse position
-				mouse.resetMouse();
-				// Reset game counter
-				resetCounter();
-				makeCheese();
-			}
-		};
-		// Call the reset method of the anonymous class
-		gameReset.reset();
 	}
 
 	/**
-	 * Resets the game counter and updates the highest score and current level.
-	 * Called when the game is reset.
+	 * Formats one line of the latency overlay.
+	 *
+	 * @param label The name of the latency.
+	 * @param h     Its histogram.
+	 * @return The line.
 	 */
-	public static void resetCounter() {
-		HighScore.updateHighScore(counter); // Update highest score with current counter value
-		Level.resetLevel(); // Reset game level to initial value
-		counter = 0; // Reset game counter to zero
+	private static String latencyLine(String label, LatencyHistogram h) {
+		return String.format("%-18s p50 %6.2f ms  p99 %6.2f ms", label, h.getValueAtPercentile(50) / 1e6,
+				h.getValueAtPercentile(99) / 1e6);
 	}
 
 	/**
-	 * Pauses or resumes the game counter based on the given boolean flag.
-	 * 
-	 * @param pause True to pause the game counter, false to resume.
+	 * Writes the profiler and latency reports to PROFILE_FILE.
 	 */
-	public static void pauseCounter(boolean pause) {
-		pauseCounter = pause; // Set pause flag to the specified value
+	private void dumpProfile() {
+		try (Writer out = Files.newBufferedWriter(PROFILE_FILE)) {
+			simulation.getProfiler().report(out);
+			latency.report(out);
+		} catch (IOException exc) {
+			System.err.println("Could not write " + PROFILE_FILE + ": " + exc.getMessage());
+		}
 	}
 
 	/**
-	 * Main method to start the game. Creates an instance of EscapeMouse and starts
-	 * the game loop.
-	 * 
-	 * @param args Command-line arguments (unused).
+	 * Opens the persistent high score table and submits every finished game to
+	 * it under the user's login name. The game still runs if the table cannot be
+	 * opened. The table is closed, and so flushed, when the program exits.
 	 */
-	public static void main(String[] args) {
-		EscapeMouse a = new EscapeMouse(); // Create new instance of EscapeMouse
-		a.repaint(); // Start the game loop
+	private void openScores() {
+		try {
+			HighScoreTable table = new HighScoreTable(SCORES_FILE, HighScoreTable.DEFAULT_CAPACITY);
+			simulation.setHighScoreTable(table, System.getProperty("user.name"));
+			scores = table;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					table.close();
+				} catch (IOException exc) {
+					System.err.println("Could not write " + SCORES_FILE + ": " + exc.getMessage());
+				}
+			}, "close-scores"));
+		} catch (IOException exc) {
+			System.err.println("Could not open " + SCORES_FILE + ": " + exc.getMessage());
+		}
 	}
 
 	/**
-	 * Inner class to keep track of the highest score.
+	 * Starts the chunk streamer, the simulation thread and then the render loop.
+	 * From here on the simulation belongs to the simulation thread.
 	 */
-	class HighScore {
-		private static int highestScore; // Variable to store the highest score
-
-		/**
-		 * Constructor for HighScore class. Initializes the highest score to zero.
-		 */
-		public HighScore() {
-			highestScore = 0; // Initialize highest score to zero
-		}
-
-		/**
-		 * Updates the highest score if the current score is greater.
-		 * 
-		 * @param currentScore The current score to compare.
-		 */
-		public static void updateHighScore(int currentScore) {
-			if (currentScore > highestScore) {
-				highestScore = currentScore; // Update highest score if current score is greater
-			}
-		}
+	@Override
+	public void start() {
+		chunks.start();
+		loop.start();
+		super.start();
+	}
 
-		/**
-		 * Retrieves the highest score.
-		 * 
-		 * @return The highest score.
-		 */
-		public static int getHighestScore() {
-			return highestScore; // Return the highest score
-		}
+	/**
+	 * Tells the latency probe that a frame reached the screen.
+	 */
+	@Override
+	protected void frameShown() {
+		latency.shown();
 	}
 
 	/**
-	 * Inner class to keep track of the current level.
+	 * Gives the render loop this game's profiler, so it can time the buffer blit.
+	 *
+	 * @return The simulation's profiler.
 	 */
-	static class Level {
-		private static int currentLevel; // Variable to store the current level
+	@Override
+	protected TickProfiler getProfiler() {
+		return simulation.getProfiler();
+	}
 
-		/**
-		 * Constructor for Level class. Initializes the current level to 1.
-		 */
-		public Level() {
-			currentLevel = 1; // Start at level 1
+	/**
+	 * Rebuilds the HUD text for any value that changed since the last frame, so
+	 * frames where nothing changed build no strings.
+	 *
+	 * @param snapshot The tick being drawn.
+	 */
+	private void updateHud(FrameSnapshot snapshot) {
+		int score = snapshot.getScore();
+		if (score != shownScore) {
+			shownScore = score;
+			scoreText = "Score is " + score;
 		}
-
-		/**
-		 * Updates the current level based on the current score.
-		 * 
-		 * @param currentScore The current score to determine the level.
-		 */
-		public static void updateLevel(int currentScore) {
-			// Check if the score reaches a multiple of ten and a new level is reached
-			if (currentScore % 10 == 0 && currentScore != 0 && currentScore / 10 != currentLevel) {
-				currentLevel += 1; // Increment the current level
-			}
+		int highScore = snapshot.getHighScore();
+		if (scores != null) {
+			highScore = Math.max(highScore, scores.getBestScore()); // Includes earlier runs
 		}
-
-		/**
-		 * Retrieves the current level.
-		 * 
-		 * @return The current level.
-		 */
-		public static int getCurrentLevel() {
-			return currentLevel; // Return the current level
+		if (highScore != shownHighScore) {
+			shownHighScore = highScore;
+			highScoreText = "High Score is " + highScore;
+		}
+		int level = snapshot.getLevel();
+		if (level != shownLevel) {
+			shownLevel = level;
+			levelText = "Level " + level;
+		}
+		int frameRate = (int) getFps();
+		if (frameRate != shownFps) {
+			shownFps = frameRate;
+			fpsText = "FPS " + frameRate;
 		}
+	}
 
-		/**
-		 * Resets the current level to 0.
-		 */
-		public static void resetLevel() {
-			currentLevel = 0; // Reset the current level to 0
+	/**
+	 * Main method to start the game. Creates an instance of EscapeMouse and starts
+	 * the render loop.
+	 * 
+	 * @param args Nothing to play live, "--record FILE" to play live and save the
+	 *             game to FILE on exit, or "--replay FILE [RATE]" to show a
+	 *             recorded game at RATE times real time (default 1).
+	 * @throws IOException If the recording to replay cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		EscapeMouse a; // The window
+		if (args.length >= 2 && args[0].equals("--replay")) {
+			Replay replay = new Replay(InputRecording.load(Paths.get(args[1])));
+			a = new EscapeMouse(replay, args.length >= 3 ? Double.parseDouble(args[2]) : 1);
+		} else {
+			a = new EscapeMouse(); // Create new instance of EscapeMouse
+			a.openScores();
+			if (args.length >= 2 && args[0].equals("--record")) {
+				Path file = Paths.get(args[1]);
+				InputRecording recording = a.simulation.startRecording();
+				// The window closes through System.exit(), so save on the way out
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						recording.save(file);
+					} catch (IOException exc) {
+						System.err.println("Could not write " + file + ": " + exc.getMessage());
+					}
+				}, "save-recording"));
+			}
 		}
+		a.start(); // Start the simulation and render threads
 	}
 }
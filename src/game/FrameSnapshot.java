@@ -0,0 +1,248 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The FrameSnapshot class holds what one tick leaves on screen: the transform
+ * of the mouse, the cheese and every wall, each next to the transform it had
+ * on the tick before, and the values the HUD shows. The simulation thread
+ * fills a snapshot and publishes it through a SnapshotBuffer; after that the
+ * snapshot is not written again until the render thread has let go of it, so
+ * the render thread reads it without locks. The arrays are reused and only
+ * grow, so capturing a tick allocates nothing once the game has warmed up.
+ */
+public class FrameSnapshot {
+	public static final byte MOUSE = 0; // Kind of the mouse
+	public static final byte CHEESE = 1; // Kind of a cheese
+	public static final byte WALL = 2; // Kind of a wall
+
+	private long tick; // The tick this snapshot shows
+	private long time; // When that tick was due, in System.nanoTime() units
+	private long tickNanos; // Real time between two ticks when it was captured
+	private int score, highScore, level; // HUD values after the tick
+	private boolean waiting; // Whether the game waits for 'SPACE'
+	private long jumpPressTime, jumpTime; // The latest jump the latency probe followed, or 0
+	private double jumpY; // Where the mouse was when that jump started
+	private int count; // Number of entities captured
+	private byte[] kinds = new byte[16]; // Kind of each entity
+	private double[] x = new double[16], y = new double[16], rotation = new double[16]; // Transforms after the tick
+	private double[] previousX = new double[16], previousY = new double[16], previousRotation = new double[16]; // Transforms before it
+
+	/**
+	 * Fills this snapshot from a simulation that just finished a tick. Must run
+	 * on the simulation's own thread.
+	 *
+	 * @param simulation  The simulation.
+	 * @param dueTime     When the tick was due, in System.nanoTime() units.
+	 * @param inTickNanos The real time between two ticks.
+	 */
+	void capture(Simulation simulation, long dueTime, long inTickNanos) {
+		tick = simulation.getTick();
+		time = dueTime;
+		tickNanos = inTickNanos;
+		score = simulation.getCounter();
+		highScore = simulation.getHighestScore();
+		level = simulation.getCurrentLevel();
+		waiting = simulation.needsReset();
+		InputLatencyProbe probe = simulation.latencyProbe;
+		jumpPressTime = probe == null ? 0 : probe.getJumpPressTime();
+		jumpTime = probe == null ? 0 : probe.getJumpTime();
+		jumpY = probe == null ? 0 : probe.getJumpY();
+		count = 0;
+		add(MOUSE, simulation.getMouse());
+		for (Cheese cheese : simulation.getCheeses()) {
+			add(CHEESE, cheese);
+		}
+		for (Wall wall : simulation.getWalls()) {
+			add(WALL, wall);
+		}
+	}
+
+	/**
+	 * Adds one entity with its transform now and on the previous tick. An
+	 * entity that was not in the previous snapshot starts where it is.
+	 *
+	 * @param kind    The kind of entity.
+	 * @param polygon The entity.
+	 */
+	private void add(byte kind, Polygon polygon) {
+		if (count == kinds.length) {
+			grow();
+		}
+		double px = polygon.getPositionX(), py = polygon.getPositionY(), pr = polygon.getRotation();
+		boolean seen = polygon.snapshotTick == tick - 1;
+		kinds[count] = kind;
+		x[count] = px;
+		y[count] = py;
+		rotation[count] = pr;
+		previousX[count] = seen ? polygon.snapshotX : px;
+		previousY[count] = seen ? polygon.snapshotY : py;
+		previousRotation[count] = seen ? polygon.snapshotRotation : pr;
+		polygon.snapshotTick = tick;
+		polygon.snapshotX = px;
+		polygon.snapshotY = py;
+		polygon.snapshotRotation = pr;
+		count++;
+	}
+
+	/**
+	 * Doubles the room for entities.
+	 */
+	private void grow() {
+		int n = kinds.length * 2;
+		kinds = Arrays.copyOf(kinds, n);
+		x = Arrays.copyOf(x, n);
+		y = Arrays.copyOf(y, n);
+		rotation = Arrays.copyOf(rotation, n);
+		previousX = Arrays.copyOf(previousX, n);
+		previousY = Arrays.copyOf(previousY, n);
+		previousRotation = Arrays.copyOf(previousRotation, n);
+	}
+
+	/**
+	 * Finds how far the display has got from the previous tick to this one.
+	 *
+	 * @param now The display time, in System.nanoTime() units.
+	 * @return 0 at the moment this tick was due, rising to 1 a tick later.
+	 */
+	public double getAlpha(long now) {
+		if (tickNanos <= 0) {
+			return 1;
+		}
+		return Math.max(0, Math.min(1, (double) (now - time) / tickNanos));
+	}
+
+	/**
+	 * Retrieves the number of entities captured.
+	 *
+	 * @return The number of entities.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Retrieves the kind of an entity.
+	 *
+	 * @param i The entity index.
+	 * @return MOUSE, CHEESE or WALL.
+	 */
+	public byte getKind(int i) {
+		return kinds[i];
+	}
+
+	/**
+	 * Retrieves the x coordinate of an entity between the previous tick and
+	 * this one.
+	 *
+	 * @param i     The entity index.
+	 * @param alpha 0 for the previous tick, 1 for this one.
+	 * @return The x coordinate.
+	 */
+	public double getX(int i, double alpha) {
+		return previousX[i] + (x[i] - previousX[i]) * alpha;
+	}
+
+	/**
+	 * Retrieves the y coordinate of an entity between the previous tick and
+	 * this one.
+	 *
+	 * @param i     The entity index.
+	 * @param alpha 0 for the previous tick, 1 for this one.
+	 * @return The y coordinate.
+	 */
+	public double getY(int i, double alpha) {
+		return previousY[i] + (y[i] - previousY[i]) * alpha;
+	}
+
+	/**
+	 * Retrieves the rotation of an entity between the previous tick and this
+	 * one, turning the short way round across 0 degrees.
+	 *
+	 * @param i     The entity index.
+	 * @param alpha 0 for the previous tick, 1 for this one.
+	 * @return The rotation in degrees.
+	 */
+	public double getRotation(int i, double alpha) {
+		double turn = rotation[i] - previousRotation[i];
+		if (turn > 180) {
+			turn -= 360;
+		} else if (turn < -180) {
+			turn += 360;
+		}
+		return previousRotation[i] + turn * alpha;
+	}
+
+	/**
+	 * Retrieves the tick this snapshot shows.
+	 *
+	 * @return The tick number.
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Retrieves the score after the tick.
+	 *
+	 * @return The score.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Retrieves the best score of the session after the tick.
+	 *
+	 * @return The high score.
+	 */
+	public int getHighScore() {
+		return highScore;
+	}
+
+	/**
+	 * Retrieves the level after the tick.
+	 *
+	 * @return The level.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Checks whether the game waits for 'SPACE' after the tick.
+	 *
+	 * @return true if waiting, false while it is running.
+	 */
+	public boolean isWaiting() {
+		return waiting;
+	}
+
+	/**
+	 * Retrieves when the key behind the latest followed jump arrived.
+	 *
+	 * @return The arrival time, or 0 if no jump was followed.
+	 */
+	public long getJumpPressTime() {
+		return jumpPressTime;
+	}
+
+	/**
+	 * Retrieves the mouse's y coordinate when the latest followed jump started.
+	 * The mouse is always entity 0.
+	 *
+	 * @return The y coordinate.
+	 */
+	public double getJumpY() {
+		return jumpY;
+	}
+
+	/**
+	 * Retrieves when the tick of the latest followed jump ran.
+	 *
+	 * @return The tick time, or 0 if no jump was followed.
+	 */
+	public long getJumpTime() {
+		return jumpTime;
+	}
+}
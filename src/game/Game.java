@@ -2,48 +2,134 @@ package game;
 
 /*
 CLASS: Game
-DESCRIPTION: A painted canvas in its own window, updated every tenth second.
-USAGE: Extended by YourGameName.
+DESCRIPTION: A painted canvas in its own window, drawn by its own render thread
+             once per refresh of the screen, or as fast as it can while
+             measuring the achievable frame rate.
+USAGE: Extended by YourGameName. Call start() once the window is up.
 NOTE: You don't need to understand the details here, no fiddling neccessary.*/
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
 
-abstract class Game extends Canvas {
-  protected boolean on = true;
+abstract class Game extends Canvas implements Runnable {
+  protected volatile boolean on = true;
   protected int width, height;
-  protected Image buffer;
-  
+  private BufferStrategy strategy;
+  private Thread renderThread;
+  private volatile double fps;
+  private volatile boolean uncapped; // Draw without pacing, to measure the achievable FPS
+  static final int DEFAULT_REFRESH_RATE = 144; // Frames per second when the screen does not say
+
 	public Game(String name, int inWidth, int inHeight) {
 	  width = inWidth;
 	  height = inHeight;
-	  
+	  // The render thread does all the drawing, so paint requests from the
+	  // window system are ignored instead of racing it on the event thread.
+	  setIgnoreRepaint(true);
+
 	  // Frame can be read as 'window' here.
     Frame frame = new Frame(name);
+    frame.setIgnoreRepaint(true);
     frame.add(this);
     frame.setSize(width,height);
     frame.setVisible(true);
     frame.setResizable(false);
-    frame.addWindowListener(new WindowAdapter() { 
-      public void windowClosing(WindowEvent e) {System.exit(0);} 
+    frame.addWindowListener(new WindowAdapter() {
+      public void windowClosing(WindowEvent e) {on = false; System.exit(0);}
     });
-    
-    buffer = createImage(width, height);
 	}
-  
-  // 'paint' will be called every tenth of a second that the game is on.
+
+  // 'paint' will be called once per frame by the render thread.
 	abstract public void paint(Graphics brush);
-  
-  // 'update' paints to a buffer then to the screen, then waits a tenth of
-  // a second before repeating itself, assuming the game is on. This is done
-  // to avoid a choppy painting experience if repainted in pieces.
-  public void update(Graphics brush) {
-    paint(buffer.getGraphics());
-		brush.drawImage(buffer,0,0,this);
-    if (on) {sleep(10); repaint();}
+
+  // 'update' is left empty: frames come from the render thread only.
+  public void update(Graphics brush) {}
+
+  // 'start' sets up the back buffers and starts the render thread. It asks
+  // for page flipping into accelerated (VolatileImage) buffers and falls back
+  // to the best blitting strategy the platform offers.
+  public void start() {
+    if (renderThread != null) return;
+    BufferCapabilities flipping = new BufferCapabilities(
+        new ImageCapabilities(true), new ImageCapabilities(true),
+        BufferCapabilities.FlipContents.UNDEFINED);
+    try {
+      createBufferStrategy(2, flipping);
+    } catch (AWTException exc) {
+      createBufferStrategy(2);
+    }
+    strategy = getBufferStrategy();
+    renderThread = new Thread(this, "render");
+    renderThread.setDaemon(true);
+    renderThread.start();
   }
-  
-  // 'sleep' is a simple helper function used in 'update'.
-  private void sleep(int time) {
-    try {Thread.sleep(time);} catch(Exception exc){};
+
+  // 'run' is the render loop. The inner loops redraw a frame whose buffer was
+  // restored or lost while drawing, as the BufferStrategy contract requires.
+  // Outside full-screen page flipping show() does not wait for the screen,
+  // so the loop sleeps until the next refresh instead of drawing frames
+  // nobody sees; only the uncapped mode draws flat out.
+  public void run() {
+    long second = System.nanoTime();
+    int frames = 0;
+    TickProfiler profiler = getProfiler();
+    long period = 1_000_000_000L / refreshRate();
+    long deadline = second + period; // When the next frame is due
+    while (on) {
+      do {
+        do {
+          Graphics brush = strategy.getDrawGraphics();
+          try {paint(brush);} finally {brush.dispose();}
+        } while (strategy.contentsRestored());
+        long blit = profiler == null ? 0 : profiler.begin();
+        strategy.show();
+        Toolkit.getDefaultToolkit().sync();
+        if (profiler != null) profiler.end(TickProfiler.Phase.BLIT, blit);
+      } while (strategy.contentsLost());
+      frameShown();
+      frames++;
+      long now = System.nanoTime();
+      if (now - second >= 1_000_000_000L) {
+        fps = frames * 1e9 / (now - second);
+        frames = 0;
+        second = now;
+      }
+      if (uncapped) {
+        deadline = now;
+        Thread.yield();
+        continue;
+      }
+      if (now - deadline > period) deadline = now; // Fell behind: do not draw a burst to catch up
+      deadline += period;
+      for (long wait = deadline - now; wait > 0 && on; wait = deadline - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+    }
   }
-}
\ No newline at end of file
+
+  // 'refreshRate' asks the screen the window is on how often it refreshes.
+  private int refreshRate() {
+    GraphicsConfiguration config = getGraphicsConfiguration();
+    int rate = config == null ? DisplayMode.REFRESH_RATE_UNKNOWN
+        : config.getDevice().getDisplayMode().getRefreshRate();
+    return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+  }
+
+  // 'setUncapped' switches frame pacing off, so getFps() reports the frame
+  // rate the render loop could reach, or back on.
+  public void setUncapped(boolean on) {uncapped = on;}
+
+  // 'isUncapped' tells whether frames are drawn without pacing.
+  public boolean isUncapped() {return uncapped;}
+
+  // 'frameShown' is called once a frame is on screen, for latency probes.
+  protected void frameShown() {}
+
+  // 'getProfiler' gives the profiler that should time the buffer blit, if any.
+  protected TickProfiler getProfiler() {return null;}
+
+  // 'getFps' reports the frames per second the render loop achieved over
+  // the last full second.
+  public double getFps() {return fps;}
+}
@@ -0,0 +1,72 @@
+package game;
+
+/**
+ * The GameRandom class is the random number generator a simulation shares
+ * between everything it spawns. It is seeded once, so the same seed always
+ * produces the same walls and cheeses, and its whole state is a single long
+ * that can be read back and restored.
+ */
+public class GameRandom {
+	private long state; // The generator's entire state
+
+	/**
+	 * Constructs a generator from a seed.
+	 *
+	 * @param seed The seed; equal seeds give equal sequences.
+	 */
+	public GameRandom(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * Generates the next 64 random bits (SplitMix64).
+	 *
+	 * @return A random long.
+	 */
+	public long nextLong() {
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Generates a random int from 0 (inclusive) up to a bound (exclusive).
+	 *
+	 * @param bound The upper bound; must be positive.
+	 * @return A random int in [0, bound).
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Generates a random double from 0 (inclusive) up to 1 (exclusive).
+	 *
+	 * @return A random double in [0, 1).
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Retrieves the generator's state, so it can be restored later.
+	 *
+	 * @return The current state.
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Restores a state returned by getState().
+	 *
+	 * @param inState The state to restore.
+	 */
+	public void setState(long inState) {
+		state = inState;
+	}
+}
@@ -0,0 +1,531 @@
+package game;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * The HighScoreTable class keeps the best scores ever played in a file that
+ * survives the process. The table is a fixed array of records mapped into
+ * memory. Each record starts with a key word packing a busy flag, the score
+ * and a sequence number; a writer claims the lowest record with a
+ * compare-and-set on that word, fills in the rest and publishes the new key,
+ * while readers retry any record whose key changed under them. No lock is
+ * taken anywhere.
+ *
+ * Games never write the file themselves: submit() only queues the score, and
+ * a background thread appends it to a small journal, applies it to the table
+ * and, every so often, flushes the table and empties the journal. After a
+ * crash, opening the table again replays whatever the journal still holds;
+ * every entry carries an id, so a replayed entry already in the table is not
+ * counted twice.
+ *
+ * Any number of games in one process may share a table. The file itself
+ * should be opened by one process at a time.
+ */
+public class HighScoreTable implements AutoCloseable {
+	public static final int DEFAULT_CAPACITY = 100; // Scores kept unless told otherwise
+	static final int MAGIC = 0x454D4853; // "EMHS"
+	static final int VERSION = 1; // Layout version of the table file
+	static final int HEADER_SIZE = 64; // int magic, int version, int capacity, int unused, long next id
+	static final int NEXT_ID = 16; // Offset of the next entry id in the header
+	static final int SLOT_SIZE = 64; // long key, long id, int level, int unused, long time, 16 bytes player
+	static final int PLAYER_BYTES = 16; // Space for the player's name in UTF-8
+	static final int JOURNAL_RECORD = 48; // long id, int score, int level, long time, player, int crc, int unused
+	static final int CHECKPOINT_ENTRIES = 1024; // Journal entries after which the table is flushed
+	static final long BUSY = Long.MIN_VALUE; // Key flag of a record being rewritten
+
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.BIG_ENDIAN); // Atomic access to the mapped longs
+
+	private final int capacity; // Number of records in the table
+	private final FileChannel tableChannel; // The table file
+	private final MappedByteBuffer table; // The mapped table
+	private final FileChannel journal; // Entries not yet flushed with the table
+	private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>(); // Submitted, not yet written
+	private final AtomicLong submitted = new AtomicLong(); // Entries ever queued
+	private volatile long applied; // Entries the writer has finished with
+	private final Thread writer; // The background writer
+	private volatile boolean closed; // Set once close() starts
+	private int journalEntries; // Entries in the journal since the last checkpoint
+	private final ByteBuffer journalRecord = ByteBuffer.allocate(JOURNAL_RECORD); // Reused by the writer
+	private final CRC32 crc = new CRC32(); // Reused by the writer
+
+	/**
+	 * The Entry class is one score in the table.
+	 */
+	public static class Entry {
+		private final long id; // Unique id of the entry, 0 if not yet assigned
+		private final String player; // Who played
+		private final int score; // The final score
+		private final int level; // The level reached
+		private final long time; // When the game ended, in milliseconds since the epoch
+
+		/**
+		 * Constructs an entry.
+		 *
+		 * @param inId     The unique id of the entry.
+		 * @param inPlayer Who played.
+		 * @param inScore  The final score.
+		 * @param inLevel  The level reached.
+		 * @param inTime   When the game ended, in milliseconds since the epoch.
+		 */
+		Entry(long inId, String inPlayer, int inScore, int inLevel, long inTime) {
+			id = inId;
+			player = inPlayer;
+			score = inScore;
+			level = inLevel;
+			time = inTime;
+		}
+
+		/**
+		 * Retrieves the unique id the table gave the entry.
+		 *
+		 * @return The id.
+		 */
+		public long getId() {
+			return id;
+		}
+
+		/**
+		 * Retrieves who played.
+		 *
+		 * @return The player's name.
+		 */
+		public String getPlayer() {
+			return player;
+		}
+
+		/**
+		 * Retrieves the final score.
+		 *
+		 * @return The score.
+		 */
+		public int getScore() {
+			return score;
+		}
+
+		/**
+		 * Retrieves the level reached.
+		 *
+		 * @return The level.
+		 */
+		public int getLevel() {
+			return level;
+		}
+
+		/**
+		 * Retrieves when the game ended.
+		 *
+		 * @return The time, in milliseconds since the epoch.
+		 */
+		public long getTime() {
+			return time;
+		}
+	}
+
+	/**
+	 * Opens the table at a path, creating it if needed, and replays its journal.
+	 * The journal lives next to the table, with ".journal" appended to its name.
+	 *
+	 * @param file     The table file.
+	 * @param capacity The number of scores kept; must match an existing file.
+	 * @throws IOException If the files cannot be opened or do not match.
+	 */
+	public HighScoreTable(Path file, int capacity) throws IOException {
+		this.capacity = capacity;
+		tableChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		boolean fresh = tableChannel.size() == 0;
+		table = tableChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+		if (fresh) {
+			table.putInt(0, MAGIC);
+			table.putInt(4, VERSION);
+			table.putInt(8, capacity);
+			table.putLong(NEXT_ID, 1);
+		} else if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION || table.getInt(8) != capacity) {
+			tableChannel.close();
+			throw new IOException(file + " is not a high score table with " + capacity + " entries");
+		}
+		journal = FileChannel.open(Paths.get(file + ".journal"), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		recover();
+
+		writer = new Thread(this::write, "high-scores");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queues a score for the table and returns at once; the background writer
+	 * stores it. Scores of 0 or less are ignored, and so are scores submitted
+	 * while or after the table closes.
+	 *
+	 * @param player Who played; names longer than 16 bytes of UTF-8 are cut.
+	 * @param score  The final score.
+	 * @param level  The level reached.
+	 * @param time   When the game ended, in milliseconds since the epoch.
+	 */
+	public void submit(String player, int score, int level, long time) {
+		if (score <= 0 || closed) {
+			return;
+		}
+		Entry entry = new Entry(0, player, score, level, time);
+		queue.offer(entry);
+		// close() may have started after the check above, and the writer may then
+		// have seen the queue empty and stopped. Take the entry back unless the
+		// writer already has it, so it is never left behind in the queue.
+		if (closed && queue.remove(entry)) {
+			return;
+		}
+		submitted.incrementAndGet();
+		LockSupport.unpark(writer);
+	}
+
+	/**
+	 * Waits until every score submitted so far is in the table.
+	 */
+	public void flush() {
+		long target = submitted.get();
+		while (applied < target && writer.isAlive()) {
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(100_000L);
+		}
+	}
+
+	/**
+	 * Reads the scores in the table, best first. Records being rewritten at that
+	 * moment are read again once they are done.
+	 *
+	 * @return The entries, best score first.
+	 */
+	public List<Entry> getEntries() {
+		List<Entry> entries = new ArrayList<>(capacity);
+		for (int i = 0; i < capacity; i++) {
+			Entry entry = readSlot(i);
+			if (entry != null) {
+				entries.add(entry);
+			}
+		}
+		entries.sort((a, b) -> a.score != b.score ? Integer.compare(b.score, a.score) : Long.compare(a.time, b.time));
+		return entries;
+	}
+
+	/**
+	 * Finds the best score in the table without building any entries.
+	 *
+	 * @return The best score, or 0 if the table is empty.
+	 */
+	public int getBestScore() {
+		int best = 0;
+		for (int i = 0; i < capacity; i++) {
+			long key;
+			do {
+				key = (long) LONGS.getAcquire(table, slot(i));
+			} while ((key & BUSY) != 0);
+			best = Math.max(best, score(key));
+		}
+		return best;
+	}
+
+	/**
+	 * Stores the queued scores, flushes the table and stops the writer. Scores
+	 * submitted afterwards are ignored.
+	 *
+	 * @throws IOException If the files cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		flush();
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		checkpoint();
+		journal.close();
+		tableChannel.close();
+	}
+
+	/**
+	 * The background writer's loop: journals and applies queued scores, sleeping
+	 * while there are none.
+	 */
+	private void write() {
+		while (!closed || !queue.isEmpty()) {
+			Entry entry = queue.poll();
+			if (entry == null) {
+				LockSupport.parkNanos(10_000_000L);
+				continue;
+			}
+			try {
+				long id = (long) LONGS.getAndAdd(table, NEXT_ID, 1L);
+				appendJournal(id, entry);
+				insert(id, entry);
+				if (queue.isEmpty()) {
+					journal.force(false); // One sync for the whole batch
+				}
+				if (journalEntries >= CHECKPOINT_ENTRIES) {
+					checkpoint();
+				}
+			} catch (IOException exc) {
+				System.err.println("Could not store high score: " + exc.getMessage());
+			}
+			applied++;
+		}
+	}
+
+	/**
+	 * Puts a score into the table if it beats the lowest one there. The lowest
+	 * record is claimed with a compare-and-set on its key, so concurrent writers
+	 * never fill the same record; a writer that loses the race looks again.
+	 *
+	 * @param id    The unique id of the entry.
+	 * @param entry The score to insert.
+	 * @return true if the score made it into the table, false otherwise.
+	 */
+	boolean insert(long id, Entry entry) {
+		while (true) {
+			int lowest = -1;
+			long lowestKey = 0;
+			for (int i = 0; i < capacity; i++) {
+				long key = (long) LONGS.getAcquire(table, slot(i));
+				if ((key & BUSY) == 0 && (lowest < 0 || score(key) < score(lowestKey))) {
+					lowest = i;
+					lowestKey = key;
+				}
+			}
+			if (lowest < 0) {
+				Thread.onSpinWait(); // Every record is being rewritten
+				continue;
+			}
+			if (entry.score <= score(lowestKey)) {
+				return false; // Not good enough for the table
+			}
+			int at = slot(lowest);
+			if (!LONGS.compareAndSet(table, at, lowestKey, lowestKey | BUSY)) {
+				continue; // Someone else took it
+			}
+			table.putLong(at + 8, id);
+			table.putInt(at + 16, entry.level);
+			table.putLong(at + 24, entry.time);
+			putPlayer(at + 32, entry.player);
+			long sequence = (lowestKey + 1) & 0xFFFFFFFFL;
+			LONGS.setRelease(table, at, (long) entry.score << 32 | sequence);
+			return true;
+		}
+	}
+
+	/**
+	 * Reads one record consistently.
+	 *
+	 * @param index The record.
+	 * @return The entry, or null if the record is empty.
+	 */
+	private Entry readSlot(int index) {
+		int at = slot(index);
+		while (true) {
+			long key = (long) LONGS.getAcquire(table, at);
+			if ((key & BUSY) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+			if (score(key) == 0) {
+				return null;
+			}
+			long id = table.getLong(at + 8);
+			int level = table.getInt(at + 16);
+			long time = table.getLong(at + 24);
+			String player = getPlayer(at + 32);
+			VarHandle.loadLoadFence();
+			if ((long) LONGS.getVolatile(table, at) == key) {
+				return new Entry(id, player, score(key), level, time);
+			}
+		}
+	}
+
+	/**
+	 * Appends an entry to the journal.
+	 *
+	 * @param id    The unique id of the entry.
+	 * @param entry The entry.
+	 * @throws IOException If the journal cannot be written.
+	 */
+	private void appendJournal(long id, Entry entry) throws IOException {
+		ByteBuffer record = journalRecord;
+		record.clear();
+		record.putLong(id).putInt(entry.score).putInt(entry.level).putLong(entry.time);
+		byte[] name = playerBytes(entry.player);
+		record.put(name).put(new byte[PLAYER_BYTES - name.length]);
+		crc.reset();
+		crc.update(record.array(), 0, 40);
+		record.putInt((int) crc.getValue()).putInt(0);
+		record.flip();
+		journal.write(record, journal.size());
+		journalEntries++;
+	}
+
+	/**
+	 * Brings the table up to date after it was opened: records torn by a crash
+	 * are emptied, and every intact journal entry the table does not hold yet is
+	 * applied again. The first torn journal record ends the replay.
+	 *
+	 * @throws IOException If the journal cannot be read.
+	 */
+	private void recover() throws IOException {
+		for (int i = 0; i < capacity; i++) {
+			long key = (long) LONGS.getVolatile(table, slot(i));
+			if ((key & BUSY) != 0) {
+				LONGS.setVolatile(table, slot(i), 0L); // Its new score is in the journal
+			}
+		}
+		ByteBuffer record = ByteBuffer.allocate(JOURNAL_RECORD);
+		long nextId = table.getLong(NEXT_ID);
+		for (long at = 0; at + JOURNAL_RECORD <= journal.size(); at += JOURNAL_RECORD) {
+			record.clear();
+			journal.read(record, at);
+			crc.reset();
+			crc.update(record.array(), 0, 40);
+			if (record.getInt(40) != (int) crc.getValue()) {
+				break; // Torn by a crash while appending
+			}
+			long id = record.getLong(0);
+			byte[] name = new byte[PLAYER_BYTES];
+			record.position(24);
+			record.get(name);
+			Entry entry = new Entry(id, decodePlayer(name), record.getInt(8), record.getInt(12), record.getLong(16));
+			if (!contains(id)) {
+				insert(id, entry);
+			}
+			nextId = Math.max(nextId, id + 1);
+		}
+		table.putLong(NEXT_ID, nextId);
+		checkpoint();
+	}
+
+	/**
+	 * Flushes the table to disk and empties the journal, whose entries the table
+	 * now holds.
+	 *
+	 * @throws IOException If the files cannot be written.
+	 */
+	private void checkpoint() throws IOException {
+		table.force();
+		journal.truncate(0);
+		journal.force(true);
+		journalEntries = 0;
+	}
+
+	/**
+	 * Checks whether the table holds an entry.
+	 *
+	 * @param id The unique id of the entry.
+	 * @return true if a record holds that id, false otherwise.
+	 */
+	private boolean contains(long id) {
+		for (int i = 0; i < capacity; i++) {
+			int at = slot(i);
+			if (score((long) LONGS.getVolatile(table, at)) != 0 && table.getLong(at + 8) == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the offset of a record.
+	 *
+	 * @param index The record.
+	 * @return Its offset in the table file.
+	 */
+	private static int slot(int index) {
+		return HEADER_SIZE + index * SLOT_SIZE;
+	}
+
+	/**
+	 * Takes the score out of a key.
+	 *
+	 * @param key The key, without the busy flag.
+	 * @return The score, 0 for an empty record.
+	 */
+	private static int score(long key) {
+		return (int) (key >>> 32) & Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Writes a player's name into a record, padded with zeros.
+	 *
+	 * @param at     The offset of the name.
+	 * @param player The name.
+	 */
+	private void putPlayer(int at, String player) {
+		byte[] name = playerBytes(player);
+		for (int i = 0; i < PLAYER_BYTES; i++) {
+			table.put(at + i, i < name.length ? name[i] : 0);
+		}
+	}
+
+	/**
+	 * Reads a player's name out of a record.
+	 *
+	 * @param at The offset of the name.
+	 * @return The name.
+	 */
+	private String getPlayer(int at) {
+		byte[] name = new byte[PLAYER_BYTES];
+		for (int i = 0; i < PLAYER_BYTES; i++) {
+			name[i] = table.get(at + i);
+		}
+		return decodePlayer(name);
+	}
+
+	/**
+	 * Encodes a player's name in UTF-8, dropping whole characters from the end
+	 * until it fits.
+	 *
+	 * @param player The name.
+	 * @return At most PLAYER_BYTES bytes.
+	 */
+	private static byte[] playerBytes(String player) {
+		String name = player == null ? "" : player;
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		while (bytes.length > PLAYER_BYTES) {
+			name = name.substring(0, name.offsetByCodePoints(name.length(), -1));
+			bytes = name.getBytes(StandardCharsets.UTF_8);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Decodes a zero-padded UTF-8 name.
+	 *
+	 * @param name The bytes of the name.
+	 * @return The name.
+	 */
+	private static String decodePlayer(byte[] name) {
+		int length = 0;
+		while (length < name.length && name[length] != 0) {
+			length++;
+		}
+		return new String(name, 0, length, StandardCharsets.UTF_8);
+	}
+}
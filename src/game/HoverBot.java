@@ -0,0 +1,37 @@
+package game;
+
+/**
+ * The HoverBot class is a simple input policy that keeps the mouse hovering
+ * around a fixed height. It taps the space bar for a single tick whenever the
+ * mouse sinks below that height, and also to start the game. It never looks at
+ * the walls, so how long it survives depends only on how the walls happen to
+ * line up, which makes it a steady yardstick for difficulty tuning.
+ */
+public class HoverBot implements InputPolicy {
+	private final double threshold; // The bot jumps once the mouse sinks below this y
+	private boolean held; // Whether the space bar was held last tick
+
+	/**
+	 * Constructs a bot hovering around the given height.
+	 *
+	 * @param inThreshold The y coordinate the mouse should stay above.
+	 */
+	public HoverBot(double inThreshold) {
+		threshold = inThreshold;
+	}
+
+	/**
+	 * Taps the space bar when the game waits to start or the mouse is too low.
+	 * The space bar is released for at least one tick between taps, since the
+	 * mouse only jumps on a fresh press.
+	 *
+	 * @param simulation The game about to be stepped.
+	 * @return Input.SPACE for a tap, Input.NONE otherwise.
+	 */
+	@Override
+	public int nextInput(Simulation simulation) {
+		boolean press = !held && (simulation.isPaused() || simulation.getMouse().getPositionY() > threshold);
+		held = press;
+		return press ? Input.SPACE : Input.NONE;
+	}
+}
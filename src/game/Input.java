@@ -0,0 +1,30 @@
+package game;
+
+/**
+ * The Input class holds the bit flags used to describe which keys are held
+ * down during a simulation tick. A tick's input is a plain int so it can be
+ * passed around, compared and recorded without creating objects.
+ */
+public final class Input {
+	public static final int NONE = 0; // No keys held
+	public static final int SPACE = 1; // Space bar held (jump / start)
+	public static final int LEFT = 2; // Left arrow held (rotate cheese counter-clockwise)
+	public static final int RIGHT = 4; // Right arrow held (rotate cheese clockwise)
+
+	/**
+	 * Input only holds constants and helpers, so it is never instantiated.
+	 */
+	private Input() {
+	}
+
+	/**
+	 * Checks whether a key is held down in the given input.
+	 *
+	 * @param input The input bit flags for a tick.
+	 * @param key   The key flag to check.
+	 * @return true if the key is held down, false otherwise.
+	 */
+	public static boolean isDown(int input, int key) {
+		return (input & key) != 0;
+	}
+}
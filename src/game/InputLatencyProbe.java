@@ -0,0 +1,212 @@
+package game;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * The InputLatencyProbe class measures how long a jump takes to reach the
+ * screen. Each space press is timed at three points: when the key event
+ * arrived, when the tick that set the mouse's velocity to -9 ran, and when the
+ * first frame that draws the mouse risen from where it jumped was shown. A
+ * frame drawn from the jump tick's snapshot at alpha near 0 still shows the
+ * mouse where it was, so it does not count. The gaps between them go into
+ * LatencyHistograms, so the whole path from key to photon can be tuned
+ * against real numbers. It is off by default; while off, every call returns
+ * at once.
+ *
+ * pressed() and jumped() run on the simulation thread. The render thread
+ * learns of a jump only through the FrameSnapshot it draws, which carries the
+ * times of the latest jump, so the two threads share nothing but the
+ * snapshots.
+ */
+public class InputLatencyProbe {
+	static final double SHOWN_RISE = 1; // Pixels the drawn mouse must have risen for a jump to count as shown
+	private final LatencyHistogram pressToTick = new LatencyHistogram(); // Key event to jump tick
+	private final LatencyHistogram tickToPhoton = new LatencyHistogram(); // Jump tick to frame shown
+	private final LatencyHistogram pressToPhoton = new LatencyHistogram(); // Key event to frame shown
+	private volatile boolean enabled; // Whether anything is measured
+	private long pressTime; // Arrival of the last space press not yet turned into a jump, or 0; simulation thread
+	private long jumpPressTime; // Arrival of the press behind the latest jump followed, or 0; simulation thread
+	private long jumpTime; // When that jump's tick ran; simulation thread
+	private double jumpY; // The mouse's y coordinate when it jumped; simulation thread
+	private long seenJumpTime; // The latest jump a drawn frame showed; render thread
+	private long paintedPressTime; // Arrival of the press behind the jump drawn but not yet shown, or 0; render thread
+	private long paintedJumpTime; // When that jump's tick ran; render thread
+
+	/**
+	 * Switches measuring on or off. Can be called from any thread.
+	 *
+	 * @param on True to start measuring, false to stop.
+	 */
+	public void setEnabled(boolean on) {
+		enabled = on;
+		if (!on) {
+			pressTime = 0;
+		}
+	}
+
+	/**
+	 * Checks whether the probe is measuring.
+	 *
+	 * @return true if measuring, false otherwise.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Notes that a space press was handed to the simulation.
+	 *
+	 * @param arrival When the key event arrived, in System.nanoTime() units.
+	 */
+	public void pressed(long arrival) {
+		if (enabled) {
+			pressTime = arrival;
+		}
+	}
+
+	/**
+	 * Notes that a tick made the mouse jump. The jump is followed if it came from
+	 * a press this probe saw.
+	 *
+	 * @param fromY The mouse's y coordinate before the jump moved it.
+	 */
+	public void jumped(double fromY) {
+		if (enabled && pressTime != 0) {
+			jumpPressTime = pressTime;
+			jumpTime = System.nanoTime();
+			jumpY = fromY;
+			pressTime = 0;
+		}
+	}
+
+	/**
+	 * Retrieves when the key behind the latest followed jump arrived, for
+	 * FrameSnapshot to carry to the render thread. Simulation thread only.
+	 *
+	 * @return The arrival time, or 0 if no jump was followed yet.
+	 */
+	long getJumpPressTime() {
+		return jumpPressTime;
+	}
+
+	/**
+	 * Retrieves when the tick of the latest followed jump ran. Simulation thread
+	 * only.
+	 *
+	 * @return The tick time, or 0 if no jump was followed yet.
+	 */
+	long getJumpTime() {
+		return jumpTime;
+	}
+
+	/**
+	 * Retrieves the mouse's y coordinate when the latest followed jump started.
+	 * Simulation thread only.
+	 *
+	 * @return The y coordinate.
+	 */
+	double getJumpY() {
+		return jumpY;
+	}
+
+	/**
+	 * Notes that a frame is being drawn from a snapshot. If the frame draws the
+	 * mouse at least SHOWN_RISE pixels above where a jump no earlier frame showed
+	 * started, that jump is timed when the frame is shown.
+	 *
+	 * @param snapshot The snapshot being drawn.
+	 * @param alpha    How far the frame is drawn from the snapshot's previous
+	 *                 tick to its own, as passed to its getY().
+	 */
+	public void painting(FrameSnapshot snapshot, double alpha) {
+		long jump = snapshot.getJumpTime();
+		if (jump != 0 && jump != seenJumpTime && !snapshot.isWaiting() && snapshot.getCount() > 0
+				&& snapshot.getJumpY() - snapshot.getY(0, alpha) >= SHOWN_RISE) {
+			seenJumpTime = jump;
+			paintedPressTime = snapshot.getJumpPressTime();
+			paintedJumpTime = jump;
+		}
+	}
+
+	/**
+	 * Notes that a frame was shown on screen, and records the latencies of the
+	 * jump it was the first to show.
+	 */
+	public void shown() {
+		if (paintedPressTime == 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (enabled) {
+			pressToTick.record(paintedJumpTime - paintedPressTime);
+			tickToPhoton.record(now - paintedJumpTime);
+			pressToPhoton.record(now - paintedPressTime);
+		}
+		paintedPressTime = 0;
+	}
+
+	/**
+	 * Retrieves the latencies from key event to the jump tick.
+	 *
+	 * @return The histogram, in nanoseconds.
+	 */
+	public LatencyHistogram getPressToTick() {
+		return pressToTick;
+	}
+
+	/**
+	 * Retrieves the latencies from the jump tick to the frame shown.
+	 *
+	 * @return The histogram, in nanoseconds.
+	 */
+	public LatencyHistogram getTickToPhoton() {
+		return tickToPhoton;
+	}
+
+	/**
+	 * Retrieves the latencies from key event to the frame shown.
+	 *
+	 * @return The histogram, in nanoseconds.
+	 */
+	public LatencyHistogram getPressToPhoton() {
+		return pressToPhoton;
+	}
+
+	/**
+	 * Forgets everything measured so far.
+	 */
+	public void reset() {
+		pressToTick.reset();
+		tickToPhoton.reset();
+		pressToPhoton.reset();
+	}
+
+	/**
+	 * Writes a report of the three latencies.
+	 *
+	 * @param out Where to write the report.
+	 */
+	public void report(Writer out) {
+		PrintWriter writer = new PrintWriter(out);
+		writer.printf("%-20s %10s %10s %10s %10s %10s %10s%n", "jump latency (ms)", "count", "mean", "p50", "p99",
+				"p99.9", "max");
+		print(writer, "key -> tick", pressToTick);
+		print(writer, "tick -> photon", tickToPhoton);
+		print(writer, "key -> photon", pressToPhoton);
+		writer.flush();
+	}
+
+	/**
+	 * Writes one line of the report.
+	 *
+	 * @param writer Where to write.
+	 * @param label  The name of the latency.
+	 * @param h      Its histogram.
+	 */
+	private static void print(PrintWriter writer, String label, LatencyHistogram h) {
+		writer.printf("%-20s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", label, h.getCount(), h.getMean() / 1e6,
+				h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(99) / 1e6,
+				h.getValueAtPercentile(99.9) / 1e6, h.getMax() / 1e6);
+	}
+}
@@ -0,0 +1,17 @@
+package game;
+
+/**
+ * The InputPolicy interface stands in for the player when a Simulation runs
+ * without a window. Before every tick it looks at the game and decides which
+ * keys are held down. A policy may remember things between ticks, so every
+ * session gets its own instance.
+ */
+public interface InputPolicy {
+	/**
+	 * Decides the keys held down during the next tick.
+	 *
+	 * @param simulation The game about to be stepped.
+	 * @return The keys held down (Input flags).
+	 */
+	int nextInput(Simulation simulation);
+}
@@ -0,0 +1,121 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The InputQueue class carries key events from the window's event thread to
+ * the thread running the simulation. It is a fixed ring buffer with one
+ * producer and one consumer: the event thread only moves the tail, the
+ * simulation only moves the head, and each publishes its index with an
+ * ordered store, so neither ever waits for the other.
+ *
+ * Every event is stamped with System.nanoTime() when it arrives. The queue is
+ * also the input policy of the simulation: at the start of each tick it
+ * drains the events that arrived since the last one and hands out the keys
+ * held down. Each key changes at most once per tick: a key pressed and
+ * released between two ticks would otherwise vanish, so its release is held
+ * back until the next tick, and every tap lasts at least one tick.
+ */
+public class InputQueue implements InputPolicy {
+	private static final int DOWN = 1 << 8; // Event flag for a key going down; the low bits hold the Input flag
+
+	private final long[] times; // When each event arrived, in System.nanoTime() units
+	private final int[] events; // Input flag of each event, with DOWN for presses
+	private final int mask; // Capacity - 1, for wrapping indices
+	private final AtomicLong tail = new AtomicLong(); // Next slot the producer fills
+	private final AtomicLong head = new AtomicLong(); // Next slot the consumer reads
+	private final AtomicLong dropped = new AtomicLong(); // Events lost because the queue was full
+	private int keys; // Keys held down after the last drain (consumer only)
+	private InputLatencyProbe probe; // Told about every space press drained, or null
+
+	/**
+	 * Constructs an empty queue.
+	 *
+	 * @param capacity The number of events it can hold, rounded up to a power of
+	 *                 two.
+	 */
+	public InputQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+		times = new long[size];
+		events = new int[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds a key event. Only the producer thread may call this. If the queue is
+	 * full the event is dropped and counted.
+	 *
+	 * @param key  The key (an Input flag).
+	 * @param down True if the key went down, false if it went up.
+	 * @param time When the event arrived, in System.nanoTime() units.
+	 * @return true if the event was queued, false if it was dropped.
+	 */
+	public boolean offer(int key, boolean down, long time) {
+		long t = tail.get();
+		if (t - head.get() > mask) {
+			dropped.incrementAndGet();
+			return false;
+		}
+		int slot = (int) t & mask;
+		times[slot] = time;
+		events[slot] = down ? key | DOWN : key;
+		tail.lazySet(t + 1); // Publishes the slot
+		return true;
+	}
+
+	/**
+	 * Drains the events that arrived since the last tick and hands out the keys
+	 * held down during the tick about to be stepped. Only the consumer thread may
+	 * call this.
+	 *
+	 * @param simulation The simulation about to be stepped.
+	 * @return The keys held down (Input flags).
+	 */
+	@Override
+	public int nextInput(Simulation simulation) {
+		long h = head.get();
+		long t = tail.get();
+		int changed = 0; // Keys that went down or up in this drain
+		while (h < t) {
+			int slot = (int) h & mask;
+			int key = events[slot] & ~DOWN;
+			boolean down = (events[slot] & DOWN) != 0;
+			if (down != ((keys & key) != 0)) { // Repeated presses change nothing
+				if ((changed & key) != 0) {
+					break; // The key already changed this tick; leave this for the next
+				}
+				changed |= key;
+				if (down) {
+					keys |= key;
+					if (key == Input.SPACE && probe != null) {
+						probe.pressed(times[slot]);
+					}
+				} else {
+					keys &= ~key;
+				}
+			}
+			h++;
+		}
+		head.lazySet(h); // Frees the slots
+		return keys;
+	}
+
+	/**
+	 * Tells a latency probe when each space press handed out arrived. Only the
+	 * consumer thread may call this.
+	 *
+	 * @param inProbe The probe, or null for none.
+	 */
+	public void setLatencyProbe(InputLatencyProbe inProbe) {
+		probe = inProbe;
+	}
+
+	/**
+	 * Retrieves the number of events dropped because the queue was full.
+	 *
+	 * @return The number of dropped events.
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+}
@@ -0,0 +1,147 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The InputRecording class holds everything needed to play a game again: the
+ * size of the playing field, the seed of the simulation and every change of
+ * the keys held down, stamped with the tick it took effect on. Since the
+ * simulation is deterministic, stepping a new simulation with the same seed
+ * through the same inputs reproduces the game exactly. Only changes are
+ * stored, so a game where the space bar is tapped twice a second takes a few
+ * bytes per second.
+ *
+ * One thread records; other threads may save the recording at any time and
+ * get every change recorded before the tick count they read.
+ */
+public class InputRecording {
+	private final long seed; // Seed of the recorded simulation
+	private final int width, height; // Size of the playing field
+	private long[] ticks = new long[64]; // Tick each change took effect on, ascending
+	private byte[] inputs = new byte[64]; // Keys held down from that tick on (Input flags)
+	private volatile int size; // Number of changes recorded
+	private volatile long tickCount; // Number of ticks recorded
+
+	/**
+	 * Constructs an empty recording for a simulation.
+	 *
+	 * @param inSeed   The seed of the simulation.
+	 * @param inWidth  The width of the playing field.
+	 * @param inHeight The height of the playing field.
+	 */
+	public InputRecording(long inSeed, int inWidth, int inHeight) {
+		seed = inSeed;
+		width = inWidth;
+		height = inHeight;
+	}
+
+	/**
+	 * Records the input of a tick. Nothing is stored unless it differs from the
+	 * input of the tick before.
+	 *
+	 * @param tick  The tick, counting from 1; ticks must be recorded in order.
+	 * @param input The keys held down during the tick (Input flags).
+	 */
+	void record(long tick, int input) {
+		int n = size;
+		if (n == 0 ? input != Input.NONE : input != inputs[n - 1]) {
+			if (n == ticks.length) {
+				ticks = Arrays.copyOf(ticks, n * 2);
+				inputs = Arrays.copyOf(inputs, n * 2);
+			}
+			ticks[n] = tick;
+			inputs[n] = (byte) input;
+			size = n + 1; // Publish the change only once it is written
+		}
+		tickCount = tick;
+	}
+
+	/**
+	 * Retrieves the seed of the recorded simulation.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the width of the playing field.
+	 *
+	 * @return The width.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of the playing field.
+	 *
+	 * @return The height.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Retrieves the number of input changes recorded.
+	 *
+	 * @return The number of changes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieves the number of ticks recorded.
+	 *
+	 * @return The number of ticks.
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Retrieves the tick a change took effect on.
+	 *
+	 * @param index The index of the change, from 0 to size() - 1.
+	 * @return The tick.
+	 */
+	public long getTick(int index) {
+		return ticks[index];
+	}
+
+	/**
+	 * Retrieves the keys held down from a change on.
+	 *
+	 * @param index The index of the change, from 0 to size() - 1.
+	 * @return The keys held down (Input flags).
+	 */
+	public int getInput(int index) {
+		return inputs[index];
+	}
+
+	/**
+	 * Writes the recording to a replay file (see ReplayFormat), replacing it if
+	 * it exists.
+	 *
+	 * @param file The file to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void save(Path file) throws IOException {
+		ReplayWriter.write(this, file);
+	}
+
+	/**
+	 * Reads a replay file written by save().
+	 *
+	 * @param file The file to read.
+	 * @return The recording.
+	 * @throws IOException If the file cannot be read or is not a replay file.
+	 */
+	public static InputRecording load(Path file) throws IOException {
+		return ReplayReader.open(file).toRecording();
+	}
+}
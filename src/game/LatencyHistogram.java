@@ -0,0 +1,147 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The LatencyHistogram class records durations in nanoseconds into log-linear
+ * buckets, the way HdrHistogram does: every power of two is split into 64
+ * equal buckets, so any recorded value is known to within about 1.5% while the
+ * whole range of a long fits in a few thousand counters. Recording is a few
+ * shifts and an increment, with no allocation. One thread records; other
+ * threads may read percentiles at any time and get a close, if not exact,
+ * picture.
+ */
+public class LatencyHistogram {
+	private static final int LINEAR = 128; // Values below this get a bucket each
+	private static final int SUB_BUCKETS = 64; // Buckets per power of two above that
+	private static final int BUCKETS = LINEAR + 57 * SUB_BUCKETS; // Enough for any positive long
+
+	private final long[] counts = new long[BUCKETS]; // Number of values in each bucket
+	private long count; // Number of values recorded
+	private long total; // Sum of the values recorded
+	private long max; // Largest value recorded
+
+	/**
+	 * Records one value.
+	 *
+	 * @param value The value, usually a duration in nanoseconds. Negative values
+	 *              are recorded as 0.
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[bucket(value)]++;
+		count++;
+		total += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * Adds every value recorded by another histogram to this one, as if they had
+	 * been recorded here.
+	 *
+	 * @param other The histogram to add; it is left unchanged.
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		total += other.total;
+		if (other.max > max) {
+			max = other.max;
+		}
+	}
+
+	/**
+	 * Finds the value below which the given share of the recorded values fall.
+	 *
+	 * @param percentile The percentile, from 0 to 100.
+	 * @return The highest value of the bucket holding that percentile, or 0 if
+	 *         nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = count;
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Retrieves the number of values recorded.
+	 *
+	 * @return The number of values.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Retrieves the mean of the values recorded.
+	 *
+	 * @return The mean, or 0 if nothing was recorded.
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * Retrieves the largest value recorded.
+	 *
+	 * @return The largest value.
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Forgets every value recorded so far.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	/**
+	 * Finds the bucket of a value.
+	 *
+	 * @param value A value of 0 or more.
+	 * @return The bucket index.
+	 */
+	private static int bucket(long value) {
+		if (value < LINEAR) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 6; // Leaves value >>> shift in [64, 128)
+		return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	/**
+	 * Finds the highest value that falls into a bucket.
+	 *
+	 * @param index The bucket index.
+	 * @return The highest value of that bucket.
+	 */
+	private static long highestValue(int index) {
+		if (index < LINEAR) {
+			return index;
+		}
+		int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+		long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,235 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The Leaderboard class ranks the scores of finished games in memory while
+ * any number of sessions keep submitting to it. Nothing in it takes a lock.
+ *
+ * The best entries are kept in a concurrent skip list ordered by score, which
+ * answers "top 100" directly and nothing else. Ranks come from Fenwick trees
+ * of atomic counters that count every score ever submitted. Scores below
+ * getExactLimit() have one counter each in a tree allocated up front.
+ * Higher scores are bucketed by the upper half of their distance from the
+ * limit: a tree over the buckets counts the games in each, and each bucket
+ * gets its own tree over the lower half the first time a score lands in it.
+ * Counting the games above a score then takes O(log n) atomic reads whatever
+ * the score, and submitting one O(log n) atomic adds. The trees above the
+ * limit cost nothing until a game scores that high.
+ *
+ * While submissions are in flight, a query may or may not count them, but it
+ * never blocks them.
+ */
+public class Leaderboard {
+	public static final int DEFAULT_CAPACITY = 10_000; // Entries kept for top() unless told otherwise
+	public static final int DEFAULT_EXACT_LIMIT = 1 << 16; // Scores with a counter allocated up front unless told otherwise
+	private static final int LOW_BITS = 16; // Bits of a high score counted within its bucket
+	private static final int BUCKETS = 1 << (31 - LOW_BITS); // Buckets covering every int above the limit
+
+	private final ConcurrentSkipListMap<Long, HighScoreTable.Entry> best = new ConcurrentSkipListMap<>(); // Highest first when read backwards
+	private final AtomicInteger size = new AtomicInteger(); // Entries in the skip list
+	private final int capacity; // Entries kept in the skip list
+	private final AtomicLongArray counts; // Fenwick tree of the number of games per score below the limit
+	private final int exactLimit; // Scores from here up are bucketed
+	private final AtomicReference<AtomicLongArray> buckets = new AtomicReference<>(); // Fenwick tree of the games per bucket, once needed
+	private final AtomicReferenceArray<AtomicLongArray> withinBuckets = new AtomicReferenceArray<>(BUCKETS); // Per bucket, once needed: Fenwick tree of its games per score
+	private final AtomicLong submitted = new AtomicLong(); // Games ever submitted, also their ids
+
+	/**
+	 * Constructs a leaderboard with the default sizes.
+	 */
+	public Leaderboard() {
+		this(DEFAULT_CAPACITY, DEFAULT_EXACT_LIMIT);
+	}
+
+	/**
+	 * Constructs an empty leaderboard.
+	 *
+	 * @param inCapacity   The number of best entries kept for top().
+	 * @param inExactLimit The score from which on games are bucketed; each score
+	 *                     below it costs 8 bytes up front.
+	 */
+	public Leaderboard(int inCapacity, int inExactLimit) {
+		capacity = Math.max(1, inCapacity);
+		exactLimit = Math.max(1, inExactLimit);
+		counts = new AtomicLongArray(exactLimit + 1); // Fenwick trees count from 1
+	}
+
+	/**
+	 * Adds the score of a finished game.
+	 *
+	 * @param player Who played.
+	 * @param score  The final score; negative scores count as 0.
+	 * @param level  The level reached.
+	 * @return The rank of the score right after it was added, 1 being the best.
+	 */
+	public long submit(String player, int score, int level) {
+		score = Math.max(0, score);
+		long id = submitted.incrementAndGet();
+		if (score < exactLimit) {
+			increment(counts, score);
+		} else {
+			int over = score - exactLimit;
+			increment(tree(buckets, BUCKETS), over >>> LOW_BITS);
+			increment(within(over >>> LOW_BITS), over & ((1 << LOW_BITS) - 1));
+		}
+		best.put(key(score, id), new HighScoreTable.Entry(id, player, score, level, System.currentTimeMillis()));
+		if (size.incrementAndGet() > capacity && best.pollFirstEntry() != null) {
+			size.decrementAndGet(); // Drop the lowest entry
+		}
+		return rank(score);
+	}
+
+	/**
+	 * Finds the rank a score has among all games submitted: one more than the
+	 * number of games that scored strictly higher.
+	 *
+	 * @param score The score.
+	 * @return The rank, 1 being the best.
+	 */
+	public long rank(int score) {
+		score = Math.max(0, score);
+		AtomicLongArray perBucket = buckets.get();
+		if (score < exactLimit) {
+			long higher = sum(counts, exactLimit - 1) - sum(counts, score);
+			return 1 + higher + (perBucket == null ? 0 : sum(perBucket, BUCKETS - 1));
+		}
+		int over = score - exactLimit, bucket = over >>> LOW_BITS;
+		long higher = sum(perBucket, BUCKETS - 1) - sum(perBucket, bucket); // Games in the buckets above
+		AtomicLongArray inBucket = withinBuckets.get(bucket);
+		if (inBucket != null) {
+			higher += sum(inBucket, (1 << LOW_BITS) - 1) - sum(inBucket, over & ((1 << LOW_BITS) - 1));
+		}
+		return 1 + higher;
+	}
+
+	/**
+	 * Retrieves the best entries, highest score first; equal scores are ordered
+	 * by who got there first.
+	 *
+	 * @param n The number of entries wanted.
+	 * @return Up to n entries.
+	 */
+	public List<HighScoreTable.Entry> top(int n) {
+		List<HighScoreTable.Entry> entries = new ArrayList<>(Math.min(n, capacity));
+		for (Map.Entry<Long, HighScoreTable.Entry> entry : best.descendingMap().entrySet()) {
+			if (entries.size() >= n) {
+				break;
+			}
+			entries.add(entry.getValue());
+		}
+		return entries;
+	}
+
+	/**
+	 * Retrieves the highest score submitted.
+	 *
+	 * @return The highest score, or 0 if no game was submitted.
+	 */
+	public int getHighestScore() {
+		Map.Entry<Long, HighScoreTable.Entry> entry = best.lastEntry();
+		return entry == null ? 0 : entry.getValue().getScore();
+	}
+
+	/**
+	 * Retrieves the number of games submitted.
+	 *
+	 * @return The number of games.
+	 */
+	public long getGameCount() {
+		AtomicLongArray perBucket = buckets.get();
+		return sum(counts, exactLimit - 1) + (perBucket == null ? 0 : sum(perBucket, BUCKETS - 1));
+	}
+
+	/**
+	 * Retrieves the score from which on games are bucketed.
+	 *
+	 * @return The limit.
+	 */
+	public int getExactLimit() {
+		return exactLimit;
+	}
+
+	/**
+	 * Retrieves the tree of a bucket's games, allocating it the first time. Two
+	 * threads that both find it missing race with a compare-and-set, and the
+	 * loser uses the winner's tree.
+	 *
+	 * @param bucket The bucket.
+	 * @return The tree.
+	 */
+	private AtomicLongArray within(int bucket) {
+		AtomicLongArray tree = withinBuckets.get(bucket);
+		if (tree == null) {
+			withinBuckets.compareAndSet(bucket, null, new AtomicLongArray((1 << LOW_BITS) + 1));
+			tree = withinBuckets.get(bucket);
+		}
+		return tree;
+	}
+
+	/**
+	 * Retrieves a lazily allocated tree, allocating it the first time.
+	 *
+	 * @param holder Where the tree is kept.
+	 * @param size   The number of counters it needs.
+	 * @return The tree.
+	 */
+	private static AtomicLongArray tree(AtomicReference<AtomicLongArray> holder, int size) {
+		AtomicLongArray tree = holder.get();
+		if (tree == null) {
+			holder.compareAndSet(null, new AtomicLongArray(size + 1));
+			tree = holder.get();
+		}
+		return tree;
+	}
+
+	/**
+	 * Adds one game to a counter of a Fenwick tree.
+	 *
+	 * @param tree  The tree.
+	 * @param index The counter, from 0.
+	 */
+	private static void increment(AtomicLongArray tree, int index) {
+		for (int i = index + 1; i < tree.length(); i += i & -i) {
+			tree.getAndIncrement(i);
+		}
+	}
+
+	/**
+	 * Sums the counters of a Fenwick tree from 0 up to an index.
+	 *
+	 * @param tree  The tree, or null for one that was never needed.
+	 * @param index The last counter summed.
+	 * @return The number of games.
+	 */
+	private static long sum(AtomicLongArray tree, int index) {
+		long total = 0;
+		if (tree != null) {
+			for (int i = index + 1; i > 0; i -= i & -i) {
+				total += tree.get(i);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Builds the skip list key of an entry: the score in the high half, so keys
+	 * sort by score, and the id reversed in the low half, so among equal scores
+	 * the earliest sorts highest.
+	 *
+	 * @param score The score.
+	 * @param id    The id of the entry.
+	 * @return The key.
+	 */
+	private static long key(int score, long id) {
+		return (long) score << 32 | (0xFFFFFFFFL - Math.min(id, 0xFFFFFFFFL));
+	}
+}
@@ -0,0 +1,181 @@
+package game;
+
+/**
+ * The LevelChunk class is one precomputed stretch of a level: a few wall
+ * pairs, spawned one after another, with the scroll speed and spacing that go
+ * with them. A chunk is identified by the seed, level and index it was
+ * generated for, and by the chunk it follows: a LevelGenerator always produces
+ * the same chunk for the same key and previous chunk, no matter which thread
+ * asks or when. Chunks never change after they are built, so they can be
+ * handed between threads freely.
+ *
+ * A checked chunk also carries the mouse states a ReachabilityOracle found at
+ * its end, when the next chunk's first pair spawns: its exit. The next chunk
+ * is checked from there, and keeps that exit as its entry, which is how a
+ * ChunkStreamer tells whether a chunk it built follows the one the game has.
+ */
+public final class LevelChunk {
+	private final long seed; // Seed of the game this chunk belongs to
+	private final int level; // Level whose difficulty it was built for
+	private final long index; // Position in the game's sequence of chunks
+	private final double scrollSpeed; // Pixels the obstacles move left per tick
+	private final int interval; // Ticks between two wall pairs
+	private final int gap; // Height of the opening between the walls of a pair
+	private final int[] topY; // Position of each top wall
+	private final int[] bottomY; // Position of each bottom wall
+	private final long[] entry; // The previous chunk's exit, or null at the start of a round or unchecked
+	private final long[] exit; // Mouse states the oracle found at the end of this chunk, or null if not checked
+
+	/**
+	 * Constructs a chunk.
+	 *
+	 * @param inSeed        Seed of the game the chunk belongs to.
+	 * @param inLevel       Level whose difficulty it was built for.
+	 * @param inIndex       Position in the game's sequence of chunks.
+	 * @param inScrollSpeed Pixels the obstacles move left per tick.
+	 * @param inInterval    Ticks between two wall pairs.
+	 * @param inGap         Height of the opening between the walls of a pair.
+	 * @param inTopY        Position of each top wall; the array is kept.
+	 * @param inBottomY     Position of each bottom wall; the array is kept.
+	 * @param inEntry       The previous chunk's exit, or null; the array is kept.
+	 * @param inExit        The mouse states at the end of this chunk, as
+	 *                      ReachabilityOracle.findExit() gives them, or null if
+	 *                      not checked; the array is kept.
+	 */
+	LevelChunk(long inSeed, int inLevel, long inIndex, double inScrollSpeed, int inInterval, int inGap, int[] inTopY,
+			int[] inBottomY, long[] inEntry, long[] inExit) {
+		if (inTopY.length != inBottomY.length || inTopY.length == 0) {
+			throw new IllegalArgumentException("a chunk needs as many top walls as bottom walls, and at least one");
+		}
+		if (inInterval <= 0) {
+			throw new IllegalArgumentException("interval must be positive: " + inInterval);
+		}
+		seed = inSeed;
+		level = inLevel;
+		index = inIndex;
+		scrollSpeed = inScrollSpeed;
+		interval = inInterval;
+		gap = inGap;
+		topY = inTopY;
+		bottomY = inBottomY;
+		entry = inEntry;
+		exit = inExit;
+	}
+
+	/**
+	 * Checks whether this chunk is the one generated for a key.
+	 *
+	 * @param inSeed  The seed of the game.
+	 * @param inLevel The level.
+	 * @param inIndex The chunk index.
+	 * @return true if the key is this chunk's, false otherwise.
+	 */
+	public boolean matches(long inSeed, int inLevel, long inIndex) {
+		return seed == inSeed && level == inLevel && index == inIndex;
+	}
+
+	/**
+	 * Checks whether this chunk was checked following another one: from its exit,
+	 * or from the start of a round if it has none.
+	 *
+	 * @param previous The chunk whose walls are in play when this one starts, or
+	 *                 null at the start of a round.
+	 * @return true if this chunk follows it, false otherwise.
+	 */
+	public boolean follows(LevelChunk previous) {
+		return entry == (previous == null ? null : previous.exit);
+	}
+
+	/**
+	 * Retrieves the seed of the game this chunk belongs to.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the level whose difficulty the chunk was built for.
+	 *
+	 * @return The level.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Retrieves the position of the chunk in the game's sequence of chunks.
+	 *
+	 * @return The chunk index.
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	/**
+	 * Retrieves how fast the obstacles scroll while this chunk is in play.
+	 *
+	 * @return Pixels per tick.
+	 */
+	public double getScrollSpeed() {
+		return scrollSpeed;
+	}
+
+	/**
+	 * Retrieves the number of ticks between two wall pairs.
+	 *
+	 * @return The interval in ticks.
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Retrieves the height of the opening between the walls of a pair.
+	 *
+	 * @return The gap in pixels.
+	 */
+	public int getGap() {
+		return gap;
+	}
+
+	/**
+	 * Retrieves the number of wall pairs in the chunk.
+	 *
+	 * @return The number of pairs.
+	 */
+	public int getPairCount() {
+		return topY.length;
+	}
+
+	/**
+	 * Retrieves the position of a top wall.
+	 *
+	 * @param pair The pair index.
+	 * @return The y coordinate of the top wall.
+	 */
+	public int getTopY(int pair) {
+		return topY[pair];
+	}
+
+	/**
+	 * Retrieves the position of a bottom wall.
+	 *
+	 * @param pair The pair index.
+	 * @return The y coordinate of the bottom wall.
+	 */
+	public int getBottomY(int pair) {
+		return bottomY[pair];
+	}
+
+	/**
+	 * Retrieves the mouse states at the end of this chunk. The array must not be
+	 * changed.
+	 *
+	 * @return The states, or null if the chunk was not checked.
+	 */
+	long[] getExit() {
+		return exit;
+	}
+}
@@ -0,0 +1,26 @@
+package game;
+
+/**
+ * The LevelGenerator interface builds the wall layout of a game one chunk at a
+ * time. A generator must be a pure function of its key and the chunk before:
+ * the same seed, level, index and previous chunk always give the same chunk,
+ * on any thread. That is what lets a ChunkStreamer build chunks ahead of time
+ * on a background thread while replays, keyframes and batch runs still see
+ * exactly the same walls.
+ */
+public interface LevelGenerator {
+	/**
+	 * Builds one chunk.
+	 *
+	 * @param seed     The seed of the game.
+	 * @param level    The level whose difficulty to build for.
+	 * @param index    The position of the chunk in the game's sequence of
+	 *                 chunks.
+	 * @param previous The chunk whose walls are still in play when this one
+	 *                 starts, or null at the start of a round.
+	 * @param width    The width of the playing field.
+	 * @param height   The height of the playing field.
+	 * @return The chunk.
+	 */
+	LevelChunk generate(long seed, int level, long index, LevelChunk previous, int width, int height);
+}
@@ -2,20 +2,21 @@ package game;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.event.KeyEvent;
-import java.awt.event.KeyListener;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The Mouse class represents the player character (mouse) in the game.
  */
-public class Mouse extends Polygon implements KeyListener {
+public class Mouse extends Polygon {
 	private double y; // current y coordinate
 	private boolean spaceKey; // variable for forward key
 	private boolean spaceKeyReleased; // keeps track of when the space key is not pressed down
 	private double velocity; // current velocity
-	private static boolean firstSpaceBar; // makes it so the first space bar does not move the mouse and starts game
+	private boolean firstSpaceBar; // makes it so the first space bar does not move the mouse and starts game
 	private int spaceCounter; // count the number of times the space bar has been pressed
-	private EscapeMouse game;
+	private final Simulation game; // The simulation this mouse belongs to, which holds the score and the reset flag
 
 	/**
 	 * Constructs a Mouse object with the specified shape, position, and rotation.
@@ -23,8 +24,9 @@ public class Mouse extends Polygon implements KeyListener {
 	 * @param inShape    The array of points defining the shape of the mouse.
 	 * @param inPosition The position of the mouse.
 	 * @param inRotation The initial rotation of the mouse.
+	 * @param gameInstance The simulation this mouse belongs to.
 	 */
-	public Mouse(Point[] inShape, Point inPosition, double inRotation, EscapeMouse gameInstance) {
+	public Mouse(Point[] inShape, Point inPosition, double inRotation, Simulation gameInstance) {
 		super(inShape, inPosition, inRotation);
 
 		this.y = inPosition.getY();
@@ -33,8 +35,8 @@ public class Mouse extends Polygon implements KeyListener {
 		this.velocity = 0; // start with no velocity;
 		firstSpaceBar = true; // the space bar has not yet been touched
 		this.spaceCounter = 0; // start with no spaces
-		EscapeMouse.pauseCounter(true); // don't start the counter until the game has started
 		this.game = gameInstance;
+		game.pauseCounter(true); // don't start the counter until the game has started
 
 	}
 
@@ -46,19 +48,8 @@ public class Mouse extends Polygon implements KeyListener {
 	public void paint(Graphics brush) {
 		// set the color of the object
 		brush.setColor(Color.pink);
-		// get the dimensions/points of the object
-		Point[] points = getPoints();
-
-		// extract x and y coordinates from points array
-		int[] xPoints = new int[points.length];
-		int[] yPoints = new int[points.length];
-		for (int i = 0; i < points.length; i++) {
-			xPoints[i] = (int) points[i].getX();
-			yPoints[i] = (int) points[i].getY();
-		}
-
-		// use fillPolygon method to create the shape
-		brush.fillPolygon(xPoints, yPoints, points.length);
+		// use fillPolygon method to create the shape from the reused pixel arrays
+		brush.fillPolygon(getScreenX(), getScreenY(), getVertexCount());
 	}
 
 	/**
@@ -74,6 +65,9 @@ public class Mouse extends Polygon implements KeyListener {
 				spaceCounter++;
 				velocity = -9; // this will make the mouse jump
 				setSpaceKey(false); // sets spaceKey back to false until pressed again
+				if (game.latencyProbe != null) {
+					game.latencyProbe.jumped(y); // Time the jump for the latency probe
+				}
 			}
 
 			y += velocity; // add how much the mouse falls by + if it jumped at all to the current y
@@ -81,12 +75,12 @@ public class Mouse extends Polygon implements KeyListener {
 
 			// if the mouse hits the top or bottom then it will restart the game
 			if (y <= 0 || y >= 600) {
-				EscapeMouse.needsReset = true;
+				game.needsReset = true;
 				// resetMouse();
 			}
 
 			// update y coordinate
-			position.setY(y);
+			setPositionY(y);
 		}
 
 	}
@@ -111,8 +105,8 @@ public class Mouse extends Polygon implements KeyListener {
 				y = 300; // Reset y position to the middle of the screen
 				velocity = 0; // Reset velocity to 0
 				firstSpaceBar = true; // Make user hit space bar again to start the game
-				EscapeMouse.pauseCounter(true); // Stop the counter while game is stopped
-				EscapeMouse.resetCounter(); // reset the counter
+				game.pauseCounter(true); // Stop the counter while game is stopped
+				game.resetCounter(); // reset the counter
 				setSpaceCounter(0); // reset the number of times the space bar has been pressed
 			}
 		};
@@ -140,7 +134,7 @@ public class Mouse extends Polygon implements KeyListener {
 	 * 
 	 * @param value The value to set the first space bar flag to.
 	 */
-	public static void setFirstSpaceBar(boolean value) {
+	public void setFirstSpaceBar(boolean value) {
 		firstSpaceBar = value;
 	}
 
@@ -163,44 +157,60 @@ public class Mouse extends Polygon implements KeyListener {
 	}
 	
 	/**
-	 * Updates the state of the right and left arrow keys.
-	 * 
-	 * @param e The key that is being pressed
+	 * Handles the space bar going down. The first press starts the game (and
+	 * clears a pending reset), later presses make the mouse jump on the next
+	 * move.
 	 */
-	@Override
-	public void keyPressed(KeyEvent e) {
-		int keyCode = e.getKeyCode();
-
-		if (keyCode == KeyEvent.VK_SPACE && EscapeMouse.needsReset) {
-			EscapeMouse.needsReset = false;
+	public void pressSpace() {
+		if (game.needsReset) {
+			game.needsReset = false;
 		}
-		if (keyCode == KeyEvent.VK_SPACE && firstSpaceBar == true) {
+		if (firstSpaceBar == true) {
 			firstSpaceBar = false; // start the game since the user has hit the space bar
 
-			EscapeMouse.pauseCounter(false); // start the counter again
-		} else if (keyCode == KeyEvent.VK_SPACE && spaceKeyReleased) {
+			game.pauseCounter(false); // start the counter again
+		} else if (spaceKeyReleased) {
 			setSpaceKey(true);
 			spaceKeyReleased = false; // space bar is no longer released
 		}
 	}
-	
+
 	/**
-	 * Updates the state of the right and left arrow keys.
-	 * 
-	 * @param e The key that is being released
+	 * Handles the space bar going up, so the next press can jump again.
 	 */
-	@Override
-	public void keyReleased(KeyEvent e) {
-		int keyCode = e.getKeyCode();
-		if (keyCode == KeyEvent.VK_SPACE) {
-			setSpaceKey(false);
-			spaceKeyReleased = true; // space bar is released
-		}
+	public void releaseSpace() {
+		setSpaceKey(false);
+		spaceKeyReleased = true; // space bar is released
 	}
 
-	@Override
-	// add code to this if we want to include when a key has been typed
-	public void keyTyped(KeyEvent e) {
-		// invoked when a key pas been pressed
+	/**
+	 * Writes everything that decides how the mouse moves next, for a replay
+	 * keyframe.
+	 *
+	 * @param out Where to write the state.
+	 * @throws IOException If writing fails.
+	 */
+	void writeState(DataOutput out) throws IOException {
+		out.writeDouble(y);
+		out.writeDouble(velocity);
+		out.writeBoolean(spaceKey);
+		out.writeBoolean(spaceKeyReleased);
+		out.writeBoolean(firstSpaceBar);
+		out.writeInt(spaceCounter);
+	}
+
+	/**
+	 * Restores the state written by writeState().
+	 *
+	 * @param in The buffer to read from, positioned at the state.
+	 */
+	void readState(ByteBuffer in) {
+		y = in.getDouble();
+		velocity = in.getDouble();
+		spaceKey = in.get() != 0;
+		spaceKeyReleased = in.get() != 0;
+		firstSpaceBar = in.get() != 0;
+		spaceCounter = in.getInt();
+		setPositionY(y);
 	}
 }
@@ -0,0 +1,78 @@
+package game;
+
+import java.util.ArrayDeque;
+
+/**
+ * The ObstaclePool class keeps walls and cheeses that left the game so they can
+ * be handed out again instead of being rebuilt. A recycled obstacle keeps its
+ * shape buffers and is only moved back into place, so once the pool has warmed
+ * up, spawning creates no new objects.
+ */
+public class ObstaclePool {
+	private final ArrayDeque<Wall> walls = new ArrayDeque<>(); // Walls waiting to be reused
+	private final ArrayDeque<Cheese> cheeses = new ArrayDeque<>(); // Cheeses waiting to be reused
+	private long created; // Number of obstacles the pool had to build
+
+	/**
+	 * Hands out a wall at the given position, reusing a released one if possible.
+	 *
+	 * @param x     The x coordinate of the wall.
+	 * @param y     The y coordinate of the wall.
+	 * @param isTop Indicates whether the wall is at the top or bottom of the screen.
+	 * @return A wall ready to be added to the game.
+	 */
+	public Wall obtainWall(double x, double y, boolean isTop) {
+		Wall wall = walls.poll();
+		if (wall == null) {
+			created++;
+			return new Wall(new Point(x, y), isTop);
+		}
+		wall.reinitialize(x, y, isTop);
+		return wall;
+	}
+
+	/**
+	 * Hands out a cheese at the given position, reusing a released one if possible.
+	 *
+	 * @param x The x coordinate of the cheese.
+	 * @param y The y coordinate of the cheese.
+	 * @return A cheese ready to be added to the game.
+	 */
+	public Cheese obtainCheese(double x, double y) {
+		Cheese cheese = cheeses.poll();
+		if (cheese == null) {
+			created++;
+			return new Cheese(Cheese.createShape(), new Point(x, y), 0);
+		}
+		cheese.reinitialize(x, y);
+		return cheese;
+	}
+
+	/**
+	 * Takes back a wall that is no longer in the game.
+	 *
+	 * @param wall The wall to recycle.
+	 */
+	public void release(Wall wall) {
+		walls.push(wall);
+	}
+
+	/**
+	 * Takes back a cheese that is no longer in the game.
+	 *
+	 * @param cheese The cheese to recycle.
+	 */
+	public void release(Cheese cheese) {
+		cheeses.push(cheese);
+	}
+
+	/**
+	 * Retrieves how many obstacles the pool had to build because none were free.
+	 * Once the game has warmed up, this stops growing.
+	 *
+	 * @return The number of obstacles built.
+	 */
+	public long getCreatedCount() {
+		return created;
+	}
+}
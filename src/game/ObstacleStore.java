@@ -0,0 +1,242 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The ObstacleStore class keeps the transforms of every scrolling obstacle
+ * (walls and cheeses) in parallel arrays, one slot per obstacle. Scrolling
+ * everything left is then a single loop over one array instead of a visit to
+ * every object. The Wall and Cheese objects stay the views used for painting
+ * and collisions: a polygon in the store reads its position and rotation from
+ * its slot whenever its points are needed, and writes back through its setters.
+ * Each obstacle keeps the scroll speed it entered with, so the walls of a chunk
+ * move at the speed that chunk was checked at even after the next chunk, built
+ * for another level, has taken over.
+ */
+public class ObstacleStore {
+	private static final int INITIAL_CAPACITY = 16; // Slots allocated up front
+
+	double[] x, y, rotation; // Position and rotation of each obstacle
+	double[] speed; // Pixels each obstacle moves left per tick
+	double[] left, right; // Bounding box edges, relative to the x position
+	private double[] low, high; // Range of x that keeps the box in the same grid columns
+	private Polygon[] views; // The obstacle in each slot
+	private int size; // Number of slots in use
+	private final double cellSize; // Width of a SpatialGrid column
+	private double scrollSpeed = Simulation.SCROLL_SPEED; // Pixels an obstacle added now moves left per tick
+	private double fastest = Simulation.SCROLL_SPEED; // No obstacle in the store moves faster than this
+
+	/**
+	 * Constructs an empty store for obstacles registered in a SpatialGrid with the
+	 * given cell size.
+	 *
+	 * @param inCellSize The cell size of the grid the obstacles are kept in.
+	 */
+	public ObstacleStore(double inCellSize) {
+		cellSize = inCellSize;
+		x = new double[INITIAL_CAPACITY];
+		y = new double[INITIAL_CAPACITY];
+		rotation = new double[INITIAL_CAPACITY];
+		speed = new double[INITIAL_CAPACITY];
+		left = new double[INITIAL_CAPACITY];
+		right = new double[INITIAL_CAPACITY];
+		low = new double[INITIAL_CAPACITY];
+		high = new double[INITIAL_CAPACITY];
+		views = new Polygon[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Adds an obstacle to the store. From now on its transform lives in its slot,
+	 * and it scrolls at the speed set by setScrollSpeed().
+	 *
+	 * @param view The obstacle to add.
+	 */
+	public void add(Polygon view) {
+		if (view.store != null) {
+			view.store.remove(view); // An obstacle lives in one store at a time
+		}
+		if (size == x.length) {
+			grow();
+		}
+		int slot = size++;
+		views[slot] = view;
+		x[slot] = view.getPositionX();
+		y[slot] = view.getPositionY();
+		rotation[slot] = view.getRotation();
+		speed[slot] = scrollSpeed;
+		fastest = Math.max(fastest, scrollSpeed);
+		view.store = this;
+		view.slot = slot;
+		refresh(view);
+	}
+
+	/**
+	 * Removes an obstacle from the store. The last slot is moved into the freed
+	 * one, so removal never shifts the other obstacles. The obstacle keeps its
+	 * last transform.
+	 *
+	 * @param view The obstacle to remove.
+	 */
+	public void remove(Polygon view) {
+		if (view.store != this) {
+			return; // Not stored here
+		}
+		view.pullTransform(); // Take the transform back
+		int slot = view.slot;
+		int last = --size;
+		if (slot != last) {
+			x[slot] = x[last];
+			y[slot] = y[last];
+			rotation[slot] = rotation[last];
+			speed[slot] = speed[last];
+			left[slot] = left[last];
+			right[slot] = right[last];
+			low[slot] = low[last];
+			high[slot] = high[last];
+			views[slot] = views[last];
+			views[slot].slot = slot;
+		}
+		views[last] = null;
+		view.store = null;
+	}
+
+	/**
+	 * Removes every obstacle from the store.
+	 */
+	public void clear() {
+		while (size > 0) {
+			remove(views[size - 1]);
+		}
+		fastest = scrollSpeed;
+	}
+
+	/**
+	 * Retrieves how far scroll() moves the obstacles added from now on.
+	 *
+	 * @return Pixels per tick.
+	 */
+	public double getScrollSpeed() {
+		return scrollSpeed;
+	}
+
+	/**
+	 * Sets how far scroll() moves the obstacles added from now on. The
+	 * simulation sets it to the speed of the chunk the walls come from, which is
+	 * the speed that chunk was checked at.
+	 *
+	 * @param inScrollSpeed Pixels per tick.
+	 */
+	public void setScrollSpeed(double inScrollSpeed) {
+		scrollSpeed = inScrollSpeed;
+	}
+
+	/**
+	 * Retrieves how far scroll() moves an obstacle.
+	 *
+	 * @param view The obstacle, which must be in this store.
+	 * @return Pixels per tick.
+	 */
+	public double getScrollSpeed(Polygon view) {
+		return speed[view.slot];
+	}
+
+	/**
+	 * Sets how far scroll() moves an obstacle already in the store, as when a
+	 * keyframe puts it back.
+	 *
+	 * @param view          The obstacle, which must be in this store.
+	 * @param inScrollSpeed Pixels per tick.
+	 */
+	public void setScrollSpeed(Polygon view, double inScrollSpeed) {
+		speed[view.slot] = inScrollSpeed;
+		fastest = Math.max(fastest, inScrollSpeed);
+	}
+
+	/**
+	 * Retrieves a speed no obstacle in the store moves faster than, for
+	 * widening collision queries by the most any obstacle moved.
+	 *
+	 * @return Pixels per tick.
+	 */
+	public double getFastestScrollSpeed() {
+		return fastest;
+	}
+
+	/**
+	 * Moves every obstacle left by its scroll speed. The first loop only touches the x column. The
+	 * second compares each new x against the range that keeps the obstacle in
+	 * the same grid columns, and only tells the obstacle about the move when it
+	 * left that range, which is the only time the grid has to hear of it. Every
+	 * other obstacle picks up its new position the next time its points are
+	 * read.
+	 */
+	public void scroll() {
+		double[] xs = x, dx = speed;
+		int n = size;
+		for (int i = 0; i < n; i++) {
+			xs[i] -= dx[i];
+		}
+		for (int i = 0; i < n; i++) {
+			if (xs[i] < low[i] || xs[i] >= high[i]) {
+				views[i].pull(); // Let the polygon and its grid catch up
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of obstacles in the store.
+	 *
+	 * @return The number of obstacles.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieves the obstacle in a slot.
+	 *
+	 * @param slot The slot, from 0 to size() - 1.
+	 * @return The obstacle in that slot.
+	 */
+	public Polygon get(int slot) {
+		return views[slot];
+	}
+
+	/**
+	 * Records the bounding box of an obstacle after it moved or rotated, so
+	 * scroll() can tell when it crosses into another grid column. An obstacle
+	 * outside any grid never needs to hear about scrolling.
+	 *
+	 * @param view The obstacle, which must be in this store.
+	 */
+	void refresh(Polygon view) {
+		int slot = view.slot;
+		left[slot] = view.getMinX() - x[slot];
+		right[slot] = view.getMaxX() - x[slot];
+		if (view.grid == null) {
+			low[slot] = Double.NEGATIVE_INFINITY;
+			high[slot] = Double.POSITIVE_INFINITY;
+			return;
+		}
+		int first = (int) Math.floor((x[slot] + left[slot]) / cellSize);
+		int last = (int) Math.floor((x[slot] + right[slot]) / cellSize);
+		low[slot] = Math.max(first * cellSize - left[slot], last * cellSize - right[slot]);
+		high[slot] = Math.min((first + 1) * cellSize - left[slot], (last + 1) * cellSize - right[slot]);
+	}
+
+	/**
+	 * Doubles the length of every column.
+	 */
+	private void grow() {
+		int capacity = x.length * 2;
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		rotation = Arrays.copyOf(rotation, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		low = Arrays.copyOf(low, capacity);
+		high = Arrays.copyOf(high, capacity);
+		views = Arrays.copyOf(views, capacity);
+	}
+}
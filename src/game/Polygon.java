@@ -1,6 +1,9 @@
 
 
 package game;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 /*
 CLASS: Polygon
 DESCRIPTION: A polygon is a sequence of points in space defined by a set of
@@ -12,107 +15,516 @@ USAGE: You are intended to instantiate this class with a set of points that
       rotating that shape. In defining the shape, the relative positions
       of the points you provide are used, in other words: {(0,1),(1,1),(1,0)}
       is the same shape as {(9,10),(10,10),(10,9)}.
+      Move and rotate it only through the setters below: they mark the
+      transformed points as stale, and the points are then rebuilt once, the
+      next time anyone asks for them, instead of on every call.
 NOTE: You don't need to worry about the "magic math" details.
 */
 class Polygon {
- private Point[] shape;   // An array of points.
- public Point position;   // The offset mentioned above.
- public double rotation; // Zero degrees is due east.
- 
+ // Counts every array and Point a polygon allocates: its tables when it is
+ // built, its pixel arrays the first time it is painted and the copies
+ // getPoints() hands out. Walls and cheeses are recycled, so once the pool is
+ // warm this stays flat while the game runs, which shows that moving,
+ // colliding and painting allocate nothing.
+ private static final LongAdder allocations = new LongAdder();
+ // Sine and cosine of every whole degree from 0 to 359. rotate() only ever
+ // turns by whole degrees, so most rebuilds need no trigonometry at all.
+ private static final double[] SIN = new double[360], COS = new double[360];
+ static {
+   for (int degrees = 0; degrees < 360; degrees++) {
+     double radians = Math.toRadians(degrees);
+     SIN[degrees] = Math.sin(radians);
+     COS[degrees] = Math.cos(radians);
+   }
+ }
+
+ private final double[] shapeX, shapeY; // The shape, relative to its origin.
+ private final double centerX, centerY; // The shape's centroid, found once.
+ private final double[] worldX, worldY; // The transformed points, cached.
+ private double positionX, positionY;   // The offset mentioned above.
+ private double rotation; // Zero degrees is due east.
+ private boolean dirty = true; // True when the cached points are stale.
+ private int[] screenX, screenY; // The cached points in whole pixels, reused.
+ private boolean screenStale = true; // True when the pixels lag the points.
+ private double minX, minY, maxX, maxY; // The box around the cached points.
+ private final double[] normalX, normalY; // One axis per distinct edge direction.
+ private final double[] axisX, axisY;     // Those axes, rotated, cached.
+ private final boolean convex;  // True if the shape never turns both ways.
+ private final boolean boxShape; // True if every edge is horizontal or vertical.
+ private final int[] corners; // The distinct turning points of a convex shape, in order.
+ private final int turn;      // 1 if those corners run clockwise on screen, -1 if not.
+ // Bookkeeping for the SpatialGrid this polygon is registered in, if any.
+ SpatialGrid grid;
+ int gridMinColumn, gridMaxColumn, gridMinRow, gridMaxRow, gridStamp;
+ // The ObstacleStore slot holding this polygon's transform, if any. While it
+ // is stored, the fields above are only a copy of that slot.
+ ObstacleStore store;
+ int slot;
+ // The transform this polygon had in the last FrameSnapshot, and its tick.
+ long snapshotTick = Long.MIN_VALUE;
+ double snapshotX, snapshotY, snapshotRotation;
+
   public Polygon(Point[] inShape, Point inPosition, double inRotation) {
-   shape = inShape;
-   position = inPosition;
+   int n = inShape.length;
+   shapeX = new double[n];
+   shapeY = new double[n];
+   worldX = new double[n];
+   worldY = new double[n];
+   positionX = inPosition.x;
+   positionY = inPosition.y;
    rotation = inRotation;
-  
+
    // First, we find the shape's top-most left-most boundary, its origin.
-   Point origin = shape[0].clone();
-   for (Point p : shape) {
-     if (p.x < origin.x) origin.x = p.x;
-     if (p.y < origin.y) origin.y = p.y;
+   double originX = inShape[0].x, originY = inShape[0].y;
+   for (Point p : inShape) {
+     if (p.x < originX) originX = p.x;
+     if (p.y < originY) originY = p.y;
    }
-  
+
    // Then, we orient all of its points relative to the real origin.
-   for (Point p : shape) {
-     p.x -= origin.x;
-     p.y -= origin.y;
+   for (int i = 0; i < n; i++) {
+     shapeX[i] = inShape[i].x - originX;
+     shapeY[i] = inShape[i].y - originY;
+   }
+
+   // The shape never changes from here on, so neither does its center.
+   double area = findArea();
+   double sumX = 0, sumY = 0;
+   for (int i = 0, j = 1; i < n; i++, j=(j+1)%n) {
+     double cross = shapeX[i] * shapeY[j] - shapeX[j] * shapeY[i];
+     sumX += (shapeX[i] + shapeX[j]) * cross;
+     sumY += (shapeY[i] + shapeY[j]) * cross;
    }
+   centerX = Math.abs(sumX/(6*area));
+   centerY = Math.abs(sumY/(6*area));
+
+   // Finally, the separating axes: the normal of every edge, skipping the
+   // zero-length edge of a closed shape and edges parallel to one seen before.
+   double[] nx = new double[n], ny = new double[n];
+   int axes = 0;
+   boolean straight = true;
+   for (int i = 0, j = 1; i < n; i++, j=(j+1)%n) {
+     double ex = shapeX[j]-shapeX[i], ey = shapeY[j]-shapeY[i];
+     if (ex == 0 && ey == 0) continue;
+     if (ex != 0 && ey != 0) straight = false;
+     boolean seen = false;
+     for (int k = 0; k < axes; k++) {
+       if (nx[k]*ex + ny[k]*ey == 0) seen = true; // Same normal direction.
+     }
+     if (!seen) {nx[axes] = -ey; ny[axes] = ex; axes++;}
+   }
+   normalX = Arrays.copyOf(nx, axes);
+   normalY = Arrays.copyOf(ny, axes);
+   axisX = new double[axes];
+   axisY = new double[axes];
+   convex = findConvex();
+   boxShape = convex && straight;
+
+   // For a convex shape, keep just the points where it really turns, so the
+   // fast contains() needs no special cases for repeats or straight runs.
+   int[] distinct = new int[n];
+   int count = 0;
+   for (int i = 0; i < n; i++) {
+     int last = count == 0 ? -1 : distinct[count-1];
+     if (last < 0 || shapeX[i] != shapeX[last] || shapeY[i] != shapeY[last]) distinct[count++] = i;
+   }
+   if (count > 1 && shapeX[distinct[count-1]] == shapeX[distinct[0]]
+       && shapeY[distinct[count-1]] == shapeY[distinct[0]]) count--; // Closed.
+   int[] turning = new int[count];
+   int kept = 0, sign = 0;
+   for (int m = 0; m < count; m++) {
+     int i = distinct[(m+count-1)%count], j = distinct[m], k = distinct[(m+1)%count];
+     double cross = (shapeX[j]-shapeX[i]) * (shapeY[k]-shapeY[j])
+                  - (shapeY[j]-shapeY[i]) * (shapeX[k]-shapeX[j]);
+     if (cross != 0) {turning[kept++] = j; sign = cross > 0 ? 1 : -1;}
+   }
+   corners = convex && kept >= 3 ? Arrays.copyOf(turning, kept) : null;
+   turn = sign;
+   allocations.add(corners == null ? 12 : 13); // The arrays above.
  }
   // "getPoints" applies the rotation and offset to the shape of the polygon.
+  // It returns fresh copies; use getVertexX/getVertexY on hot paths instead.
  public Point[] getPoints() {
-   Point center = findCenter();
-   Point[] points = new Point[shape.length];
-   for (int i = 0; i < shape.length; i++) {
-//    for (Point p : shape) {
-     Point p = shape[i];
-     double x = ((p.x-center.x) * Math.cos(Math.toRadians(rotation)))
-              - ((p.y-center.y) * Math.sin(Math.toRadians(rotation)))
-              + center.x/2 + position.x;
-     double y = ((p.x-center.x) * Math.sin(Math.toRadians(rotation)))
-              + ((p.y-center.y) * Math.cos(Math.toRadians(rotation)))
-              + center.y/2 + position.y;
-     points[i] = new Point(x,y);
+   updateVertices();
+   Point[] points = new Point[worldX.length];
+   for (int i = 0; i < worldX.length; i++) {
+     points[i] = new Point(worldX[i], worldY[i]);
    }
+   allocations.add(worldX.length + 1);
    return points;
  }
-  // "contains" implements some magical math (i.e. the ray-casting algorithm).
- public boolean contains(Point point) {
-   Point[] points = getPoints();
-   double crossingNumber = 0;
-   for (int i = 0, j = 1; i < shape.length; i++, j=(j+1)%shape.length) {
-     if ((((points[i].x < point.x) && (point.x <= points[j].x)) ||
-          ((points[j].x < point.x) && (point.x <= points[i].x))) &&
-         (point.y > points[i].y + (points[j].y-points[i].y)/
-          (points[j].x - points[i].x) * (point.x - points[i].x))) {
-       crossingNumber++;
-     }
+  // The transformed points, one coordinate at a time, without copying.
+ public int getVertexCount() {return worldX.length;}
+ public double getVertexX(int i) {updateVertices(); return worldX[i];}
+ public double getVertexY(int i) {updateVertices(); return worldY[i];}
+  // The cached points rounded down to whole pixels, ready for fillPolygon.
+  // The arrays are allocated once and refilled only after the polygon moved,
+  // so callers must not keep or change them.
+ public int[] getScreenX() {updateScreen(); return screenX;}
+ public int[] getScreenY() {updateScreen(); return screenY;}
+
+  // The axis-aligned bounding box of the transformed points. It is rebuilt
+  // together with them, so reading it costs nothing once they are current.
+ public double getMinX() {updateVertices(); return minX;}
+ public double getMinY() {updateVertices(); return minY;}
+ public double getMaxX() {updateVertices(); return maxX;}
+ public double getMaxY() {updateVertices(); return maxY;}
+  // "boundsOverlap" is the cheap test to run before collides(): polygons
+  // whose boxes are apart cannot possibly touch.
+ public boolean boundsOverlap(Polygon other) {
+   updateVertices();
+   other.updateVertices();
+   return minX <= other.maxX && other.minX <= maxX
+       && minY <= other.maxY && other.minY <= maxY;
+ }
+  // "sweptBoundsOverlap" is the cheap test to run before sweep(): the box
+  // around everywhere this polygon was during the step against the other's.
+ public boolean sweptBoundsOverlap(Polygon other, double dx, double dy) {
+   updateVertices();
+   other.updateVertices();
+   return Math.min(minX, minX-dx) <= other.maxX && other.minX <= Math.max(maxX, maxX-dx)
+       && Math.min(minY, minY-dy) <= other.maxY && other.minY <= Math.max(maxY, maxY-dy);
+ }
+
+  // "contains" tests a point against the polygon. Convex shapes, which is
+  // every shape the game uses, take the binary search in containsConvex();
+  // anything else falls back to some magical math (i.e. the ray-casting
+  // algorithm). Points on the edge of a convex shape count as inside.
+ public boolean contains(Point point) {return contains(point.x, point.y);}
+ public boolean contains(double px, double py) {
+   updateVertices();
+   return corners != null ? containsConvex(px, py) : crosses(px, py);
+ }
+  // "contains" for many points at once: the points are only brought up to
+  // date once, and inside[i], if given, is set for each point. Returns how
+  // many of the first count points are inside.
+ public int contains(double[] xs, double[] ys, int count, boolean[] inside) {
+   updateVertices();
+   int found = 0;
+   for (int i = 0; i < count; i++) {
+     boolean in = corners != null ? containsConvex(xs[i], ys[i]) : crosses(xs[i], ys[i]);
+     if (inside != null) inside[i] = in;
+     if (in) found++;
    }
-   return crossingNumber%2 == 1;
+   return found;
  }
- 
+
  /**
-	 * Checks if this polygon collides with another polygon.
+	 * Checks if this polygon collides with another polygon. Two convex polygons
+	 * are tested with the separating axis theorem, which also catches edges
+	 * crossing without either polygon containing a point of the other. Concave
+	 * shapes fall back to checking the points of each against the other.
 	 * @param other The other polygon to check collision with.
 	 * @return true if there is a collision, false otherwise.
 	 */
 	public boolean collides(Polygon other) {
-	    Point[] points = other.getPoints(); // Get the points of the other polygon
+	    updateVertices(); // Make sure both polygons' points are current
+	    other.updateVertices();
+	    if (!convex || !other.convex) {
+	        return containsAnyPoint(other) || other.containsAnyPoint(this);
+	    }
+	    // An axis-aligned rectangle's own axes are x and y, so its bounding box
+	    // stands in for them; two such rectangles need nothing else.
+	    if ((isBox() || other.isBox()) && !boundsOverlap(other)) {
+	        return false; // Separated along x or y
+	    }
+	    return (isBox() || !separatedOnOwnAxes(other))
+	        && (other.isBox() || !other.separatedOnOwnAxes(this));
+	}
+
+	/**
+	 * Sweeps this polygon against another along the straight path it moved
+	 * relative to the other during the last step, and finds when they first
+	 * touched. This polygon's current transform is where the step ended; it
+	 * started (dx, dy) back from there. Unlike collides(), this catches a fast
+	 * polygon passing clean through a thin one between two steps. For two
+	 * convex polygons the separating axes of both are exact for a sliding
+	 * motion: each axis gives the span of the step during which the shadows
+	 * overlap, and the polygons touch while every axis does. Rotation during
+	 * the step is ignored, and concave shapes only get collides() at the end.
+	 * @param other The other polygon, standing still at its current transform.
+	 * @param dx How far this polygon moved along x relative to the other.
+	 * @param dy How far this polygon moved along y relative to the other.
+	 * @return The time of impact as a share of the step, from 0 (touching from
+	 *         the start) to 1 (touching only at the end), or -1 if they never
+	 *         touched during the step.
+	 */
+	public double sweep(Polygon other, double dx, double dy) {
+	    updateVertices();
+	    other.updateVertices();
+	    if (!convex || !other.convex) {
+	        return collides(other) ? 1 : -1;
+	    }
+	    double enter = 0, exit = 1; // The part of the step no axis has ruled out yet
+	    for (int pass = 0; pass < 2; pass++) {
+	        Polygon owner = pass == 0 ? this : other;
+	        for (int k = 0; k < owner.axisX.length; k++) {
+	            double ax = owner.axisX[k], ay = owner.axisY[k];
+	            double minA = Double.POSITIVE_INFINITY, maxA = Double.NEGATIVE_INFINITY;
+	            for (int i = 0; i < worldX.length; i++) {
+	                double d = worldX[i]*ax + worldY[i]*ay;
+	                if (d < minA) minA = d;
+	                if (d > maxA) maxA = d;
+	            }
+	            double minB = Double.POSITIVE_INFINITY, maxB = Double.NEGATIVE_INFINITY;
+	            for (int i = 0; i < other.worldX.length; i++) {
+	                double d = other.worldX[i]*ax + other.worldY[i]*ay;
+	                if (d < minB) minB = d;
+	                if (d > maxB) maxB = d;
+	            }
+	            double v = dx*ax + dy*ay; // How far this shadow moved during the step
+	            if (v == 0) {
+	                if (maxA < minB || maxB < minA) return -1; // Apart all along
+	                continue;
+	            }
+	            // At time t this shadow spans [minA - v + v*t, maxA - v + v*t].
+	            double first = (minB - maxA + v) / v, last = (maxB - minA + v) / v;
+	            if (v < 0) {double swap = first; first = last; last = swap;}
+	            if (first > enter) enter = first;
+	            if (last < exit) exit = last;
+	            if (enter > exit) return -1; // The overlaps on two axes never meet
+	        }
+	    }
+	    return enter;
+	}
+
+	/**
+	 * Checks if this polygon contains any point of another polygon.
+	 * @param other The other polygon.
+	 * @return true if at least one point of other is inside this polygon.
+	 */
+	private boolean containsAnyPoint(Polygon other) {
 	    // Iterate through each point of the other polygon
-	    for (Point point : points) {
+	    for (int i = 0; i < other.worldX.length; i++) {
 	        // Check if this polygon contains the current point
-	        if (contains(point)) {
+	        if (contains(other.worldX[i], other.worldY[i])) {
 	            return true; // Collision detected
 	        }
 	    }
 	    return false; // No collision found
 	}
 
- 
- 
-  public void rotate(int degrees) {rotation = (rotation+degrees)%360;}
+	/**
+	 * Looks for a gap between this polygon and another along this polygon's
+	 * edge normals. Both polygons' points must be current.
+	 * @param other The other polygon.
+	 * @return true if one of this polygon's axes separates the two.
+	 */
+	private boolean separatedOnOwnAxes(Polygon other) {
+	    for (int k = 0; k < axisX.length; k++) {
+	        double ax = axisX[k], ay = axisY[k];
+	        double minA = Double.POSITIVE_INFINITY, maxA = Double.NEGATIVE_INFINITY;
+	        for (int i = 0; i < worldX.length; i++) {
+	            double d = worldX[i]*ax + worldY[i]*ay;
+	            if (d < minA) minA = d;
+	            if (d > maxA) maxA = d;
+	        }
+	        double minB = Double.POSITIVE_INFINITY, maxB = Double.NEGATIVE_INFINITY;
+	        for (int i = 0; i < other.worldX.length; i++) {
+	            double d = other.worldX[i]*ax + other.worldY[i]*ay;
+	            if (d < minB) minB = d;
+	            if (d > maxB) maxB = d;
+	        }
+	        if (maxA < minB || maxB < minA) {
+	            return true; // Found a gap, so they cannot touch
+	        }
+	    }
+	    return false;
+	}
+
+	/**
+	 * Checks if this polygon currently is an axis-aligned rectangle, so that its
+	 * bounding box is exactly its shape.
+	 * @return true if the shape is a rectangle turned by a multiple of 90 degrees.
+	 */
+	public boolean isBox() {
+	    return boxShape && rotation % 90 == 0;
+	}
+
+	/**
+	 * Checks if the shape is convex, which collides() relies on.
+	 * @return true if the shape is convex.
+	 */
+	public boolean isConvex() {
+	    return convex;
+	}
+
+  // The tracked setters: every change to the position or rotation goes
+  // through here so the cached points know when to rebuild.
+ public double getPositionX() {pullTransform(); return positionX;}
+ public double getPositionY() {pullTransform(); return positionY;}
+ public double getRotation() {pullTransform(); return rotation;}
+ public void setPosition(double x, double y) {
+   pullTransform();
+   if (x != positionX || y != positionY) {positionX = x; positionY = y; moved();}
+ }
+ public void setPositionX(double x) {setPosition(x, getPositionY());}
+ public void setPositionY(double y) {setPosition(getPositionX(), y);}
+ public void setRotation(double degrees) {
+   pullTransform();
+   if (degrees != rotation) {rotation = degrees; moved();}
+ }
+  public void rotate(int degrees) {setRotation((getRotation()+degrees)%360);}
+  // "setTransform" moves and turns the polygon in one go, for reuse.
+ protected void setTransform(double x, double y, double degrees) {
+   pullTransform();
+   if (x != positionX || y != positionY || degrees != rotation) {
+     positionX = x; positionY = y; rotation = degrees; moved();
+   }
+ }
+  // "pull" is called by the store when this polygon's slot moved far enough
+  // for its grid cells to change.
+ void pull() {if (pullTransform()) moved();}
+  // "getScrollSpeed" is how far an obstacle moves left each tick: the speed
+  // it entered its store with, or the level 0 speed while it is in none.
+ double getScrollSpeed() {return store == null ? Simulation.SCROLL_SPEED : store.getScrollSpeed(this);}
+  // "pullTransform" copies the transform out of the store slot, if stored,
+  // and reports whether it differed from the copy held here.
+ boolean pullTransform() {
+   if (store == null) return false;
+   double x = store.x[slot], y = store.y[slot], r = store.rotation[slot];
+   if (x == positionX && y == positionY && r == rotation) return false;
+   positionX = x; positionY = y; rotation = r;
+   dirty = true;
+   return true;
+ }
+
+  // "getAllocationCount" reports how many arrays and Points all polygons
+  // have allocated so far.
+ static long getAllocationCount() {return allocations.sum();}
   /*
  The following methods are private access restricted because, as this access
  level always implies, they are intended for use only as helpers of the
  methods in this class that are not private. They can't be used anywhere else.
  */
+  // "moved" marks the cached points as stale, writes the transform back to
+  // the store slot, if stored, and lets the grid move it to its new cells.
+ private void moved() {
+   dirty = true;
+   if (store != null) {
+     store.x[slot] = positionX;
+     store.y[slot] = positionY;
+     store.rotation[slot] = rotation;
+     store.refresh(this);
+   }
+   if (grid != null) grid.update(this);
+ }
+  // "updateVertices" rebuilds the cached points, their bounding box and the
+  // separating axes, but only if they are stale. Whole degrees come from the
+  // tables above; any other angle costs one sine and one cosine.
+ private void updateVertices() {
+   pullTransform();
+   if (!dirty) return;
+   double cos, sin;
+   int degrees = (int) rotation;
+   if (degrees == rotation && degrees > -360 && degrees < 360) {
+     // Sine is odd and cosine even, so a negative angle reads the same
+     // entry and gives exactly what Math.sin and Math.cos would.
+     int d = Math.abs(degrees);
+     cos = COS[d];
+     sin = degrees < 0 ? -SIN[d] : SIN[d];
+   } else {
+     double radians = Math.toRadians(rotation);
+     cos = Math.cos(radians);
+     sin = Math.sin(radians);
+   }
+   double offsetX = centerX/2 + positionX, offsetY = centerY/2 + positionY;
+   minX = minY = Double.POSITIVE_INFINITY;
+   maxX = maxY = Double.NEGATIVE_INFINITY;
+   for (int i = 0; i < shapeX.length; i++) {
+     double x = shapeX[i]-centerX, y = shapeY[i]-centerY;
+     worldX[i] = (x * cos) - (y * sin) + offsetX;
+     worldY[i] = (x * sin) + (y * cos) + offsetY;
+     if (worldX[i] < minX) minX = worldX[i];
+     if (worldX[i] > maxX) maxX = worldX[i];
+     if (worldY[i] < minY) minY = worldY[i];
+     if (worldY[i] > maxY) maxY = worldY[i];
+   }
+   for (int k = 0; k < normalX.length; k++) {
+     axisX[k] = (normalX[k] * cos) - (normalY[k] * sin);
+     axisY[k] = (normalX[k] * sin) + (normalY[k] * cos);
+   }
+   dirty = false;
+   screenStale = true;
+ }
+  // "updateScreen" refills the pixel arrays from the cached points.
+ private void updateScreen() {
+   updateVertices();
+   if (!screenStale) return;
+   if (screenX == null) {
+     screenX = new int[worldX.length];
+     screenY = new int[worldX.length];
+     allocations.add(2);
+   }
+   for (int i = 0; i < worldX.length; i++) {
+     screenX[i] = (int) worldX[i];
+     screenY[i] = (int) worldY[i];
+   }
+   screenStale = false;
+ }
+  // "containsConvex" finds, by binary search, the wedge of the fan from the
+  // first corner that the point falls into, then checks the one edge that
+  // closes that wedge: O(log n) cross products and no division.
+ private boolean containsConvex(double px, double py) {
+   int n = corners.length;
+   double x0 = worldX[corners[0]], y0 = worldY[corners[0]];
+   if (side(x0, y0, corners[1], px, py) < 0) return false;
+   if (side(x0, y0, corners[n-1], px, py) > 0) return false;
+   int low = 1, high = n-1;
+   while (high - low > 1) {
+     int mid = (low + high) >>> 1;
+     if (side(x0, y0, corners[mid], px, py) >= 0) low = mid; else high = mid;
+   }
+   return side(worldX[corners[low]], worldY[corners[low]], corners[low+1], px, py) >= 0;
+ }
+  // "side" is positive if the point lies on the inner side of the line from
+  // (ax, ay) to point b, zero on it and negative beyond it.
+ private double side(double ax, double ay, int b, double px, double py) {
+   return turn * ((worldX[b]-ax) * (py-ay) - (worldY[b]-ay) * (px-ax));
+ }
+  // "crosses" is the ray cast for concave shapes: a point is inside if a
+  // ray from it crosses the outline an odd number of times.
+ private boolean crosses(double px, double py) {
+   int n = worldX.length;
+   int crossings = 0;
+   for (int i = 0, j = 1; i < n; i++, j=(j+1)%n) {
+     if ((((worldX[i] < px) && (px <= worldX[j])) ||
+          ((worldX[j] < px) && (px <= worldX[i]))) &&
+         (py > worldY[i] + (worldY[j]-worldY[i])/
+          (worldX[j] - worldX[i]) * (px - worldX[i]))) {
+       crossings++;
+     }
+   }
+   return (crossings & 1) == 1;
+ }
+  // "findConvex" checks that walking around the shape always turns the same
+  // way, ignoring repeated points and straight runs.
+ private boolean findConvex() {
+   int n = shapeX.length, sign = 0;
+   for (int i = 0; i < n; i++) {
+     int j = next(i), k = next(j);
+     double cross = (shapeX[j]-shapeX[i]) * (shapeY[k]-shapeY[j])
+                  - (shapeY[j]-shapeY[i]) * (shapeX[k]-shapeX[j]);
+     if (cross > 0) {if (sign < 0) return false; sign = 1;}
+     if (cross < 0) {if (sign > 0) return false; sign = -1;}
+   }
+   return true;
+ }
+  // "next" finds the index of the next point that differs from point i.
+ private int next(int i) {
+   int n = shapeX.length;
+   for (int j = (i+1)%n; j != i; j = (j+1)%n) {
+     if (shapeX[j] != shapeX[i] || shapeY[j] != shapeY[i]) return j;
+   }
+   return i;
+ }
   // "findArea" implements some more magic math.
  private double findArea() {
    double sum = 0;
-   for (int i = 0, j = 1; i < shape.length; i++, j=(j+1)%shape.length) {
-     sum += shape[i].x*shape[j].y-shape[j].x*shape[i].y;
+   for (int i = 0, j = 1; i < shapeX.length; i++, j=(j+1)%shapeX.length) {
+     sum += shapeX[i]*shapeY[j]-shapeX[j]*shapeY[i];
    }
    return Math.abs(sum/2);
  }
-  // "findCenter" implements another bit of math.
- private Point findCenter() {
-   Point sum = new Point(0,0);
-   for (int i = 0, j = 1; i < shape.length; i++, j=(j+1)%shape.length) {
-     sum.x += (shape[i].x + shape[j].x)
-              * (shape[i].x * shape[j].y - shape[j].x * shape[i].y);
-     sum.y += (shape[i].y + shape[j].y)
-              * (shape[i].x * shape[j].y - shape[j].x * shape[i].y);
-   }
-   double area = findArea();
-   return new Point(Math.abs(sum.x/(6*area)),Math.abs(sum.y/(6*area)));
- }
 }
 
@@ -0,0 +1,161 @@
+package game;
+
+/**
+ * The ProceduralLevelGenerator class is the game's standard level generator.
+ * Each chunk draws its walls from its own GameRandom, seeded from the game's
+ * seed, the level and the chunk index, so chunks can be built in any order
+ * and on any thread. The difficulty follows two curves over the level: the
+ * opening between the walls of a pair narrows, and the walls scroll faster,
+ * spawning more often so they stay the same distance apart.
+ *
+ * A checked generator, the default, runs every chunk through a
+ * ReachabilityOracle before it ships, from the states the previous chunk's
+ * check left the mouse in, and keeps the states at the chunk's end for the
+ * next one. A layout the mouse cannot get through is drawn again from the same
+ * GameRandom, so the result is still a pure function of the key and the
+ * previous chunk; after MAX_ATTEMPTS draws the chunk falls back to every
+ * opening in the middle of its range. Each thread keeps its own oracle, since
+ * generators are called from the streamer's thread and the simulation's alike.
+ *
+ * An unchecked generator ships the first draw as it is, which is the chunk a
+ * checked generator ships whenever the oracle accepts that draw; it is there
+ * to measure the check against. A replay has to be played with the same kind
+ * of generator as its game. Building an oracle costs more than a check, so
+ * callers that play many games, such as BatchRunner, share one generator.
+ */
+public class ProceduralLevelGenerator implements LevelGenerator {
+	public static final int PAIRS_PER_CHUNK = 4; // Wall pairs in each chunk
+	public static final int BASE_GAP = 170; // Opening between the walls of a pair on level 0
+	public static final int MIN_GAP = 110; // Narrowest opening on any level
+	public static final int GAP_STEP = 8; // How much the opening narrows per level
+	public static final double MAX_SCROLL_SPEED = 1.8; // Fastest scrolling on any level
+	public static final double SCROLL_STEP = 0.1; // Share of the level 0 speed added per level
+	public static final int SPACING = 270; // Pixels between two wall pairs (300 ticks on level 0)
+	static final int TOP_MIN = -120; // Highest top wall position
+	static final int TOP_RANGE = 200; // Spread of top wall positions below that
+	static final int MARGIN = 50; // Room kept below the opening of the lowest pair
+	static final int MAX_ATTEMPTS = 8; // Layouts drawn for a chunk before falling back
+	private final boolean checked; // Whether chunks go through the oracle
+	private final ThreadLocal<ReachabilityOracle> oracles = new ThreadLocal<>(); // Checks the chunks, one per thread
+
+	/**
+	 * Constructs a checked generator.
+	 */
+	public ProceduralLevelGenerator() {
+		this(true);
+	}
+
+	/**
+	 * Constructs a generator.
+	 *
+	 * @param inChecked true to run every chunk through the oracle, false to ship
+	 *                  the first draw unchecked.
+	 */
+	public ProceduralLevelGenerator(boolean inChecked) {
+		checked = inChecked;
+	}
+
+	/**
+	 * Finds the opening between the walls of a pair on a level.
+	 *
+	 * @param level The level.
+	 * @return The gap in pixels.
+	 */
+	public static int gapAt(int level) {
+		return Math.max(MIN_GAP, BASE_GAP - GAP_STEP * Math.max(0, level));
+	}
+
+	/**
+	 * Finds how fast the walls scroll on a level.
+	 *
+	 * @param level The level.
+	 * @return Pixels per tick.
+	 */
+	public static double scrollSpeedAt(int level) {
+		return Math.min(MAX_SCROLL_SPEED, Simulation.SCROLL_SPEED * (1 + SCROLL_STEP * Math.max(0, level)));
+	}
+
+	/**
+	 * Builds one chunk of PAIRS_PER_CHUNK wall pairs that, if this generator is
+	 * checked, the mouse can get through from where the previous chunk leaves
+	 * it.
+	 *
+	 * @param seed     The seed of the game.
+	 * @param level    The level whose difficulty to build for.
+	 * @param index    The position of the chunk in the game's sequence of
+	 *                 chunks.
+	 * @param previous The chunk whose walls are still in play when this one
+	 *                 starts, or null at the start of a round.
+	 * @param width    The width of the playing field.
+	 * @param height   The height of the playing field.
+	 * @return The chunk.
+	 */
+	@Override
+	public LevelChunk generate(long seed, int level, long index, LevelChunk previous, int width, int height) {
+		long mixed = chunkSeed(seed, level, index);
+		GameRandom random = new GameRandom(mixed);
+		int gap = gapAt(level);
+		double speed = scrollSpeedAt(level);
+		int interval = Math.max(1, (int) Math.round(SPACING / speed));
+		// Keep the whole opening of the lowest pair on the playing field
+		int range = Math.max(1, Math.min(TOP_RANGE, height - MARGIN - gap - Wall.WALL_HEIGHT - TOP_MIN));
+		long[] entry = previous == null ? null : previous.getExit();
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			int[] topY = new int[PAIRS_PER_CHUNK];
+			int[] bottomY = new int[PAIRS_PER_CHUNK];
+			for (int i = 0; i < PAIRS_PER_CHUNK; i++) {
+				topY[i] = TOP_MIN + random.nextInt(range);
+				bottomY[i] = topY[i] + Wall.WALL_HEIGHT + gap; // The opening starts where the top wall ends
+			}
+			LevelChunk chunk = new LevelChunk(seed, level, index, speed, interval, gap, topY, bottomY, entry, null);
+			if (!checked) {
+				return chunk;
+			}
+			long[] exit = getOracle(width, height).findExit(previous, chunk);
+			if (exit != null) {
+				return new LevelChunk(seed, level, index, speed, interval, gap, topY, bottomY, entry, exit);
+			}
+		}
+		// No draw could be cleared: line every opening up in the middle
+		int[] topY = new int[PAIRS_PER_CHUNK];
+		int[] bottomY = new int[PAIRS_PER_CHUNK];
+		for (int i = 0; i < PAIRS_PER_CHUNK; i++) {
+			topY[i] = TOP_MIN + range / 2;
+			bottomY[i] = topY[i] + Wall.WALL_HEIGHT + gap;
+		}
+		LevelChunk chunk = new LevelChunk(seed, level, index, speed, interval, gap, topY, bottomY, entry, null);
+		// If even this cannot be cleared, no round gets past it, and the next chunk is checked from rest
+		long[] exit = getOracle(width, height).findExit(previous, chunk);
+		return new LevelChunk(seed, level, index, speed, interval, gap, topY, bottomY, entry, exit);
+	}
+
+	/**
+	 * Retrieves the calling thread's oracle for a playing field, building it
+	 * the first time or when the field changes size.
+	 *
+	 * @param width  The width of the playing field.
+	 * @param height The height of the playing field.
+	 * @return The oracle.
+	 */
+	private ReachabilityOracle getOracle(int width, int height) {
+		ReachabilityOracle oracle = oracles.get();
+		if (oracle == null || oracle.getWidth() != width || oracle.getHeight() != height) {
+			oracle = new ReachabilityOracle(width, height);
+			oracles.set(oracle);
+		}
+		return oracle;
+	}
+
+	/**
+	 * Mixes a chunk's key into the seed of its random number generator, so
+	 * neighbouring keys get unrelated walls.
+	 *
+	 * @param seed  The seed of the game.
+	 * @param level The level.
+	 * @param index The chunk index.
+	 * @return The seed for the chunk.
+	 */
+	static long chunkSeed(long seed, int level, long index) {
+		return new GameRandom(seed + level * 0x9E3779B97F4A7C15L + index * 0xC2B2AE3D27D4EB4FL).nextLong();
+	}
+}
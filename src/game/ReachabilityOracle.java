@@ -0,0 +1,734 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The ReachabilityOracle class decides offline whether the mouse can get
+ * through a LevelChunk at all, and with how few jumps. It plays the chunk
+ * tick by tick the way Simulation does: the walls spawn at the right edge and
+ * scroll left, the mouse falls by 0.5 per tick and a space press sets its
+ * velocity to -9, and the mouse dies on the top or bottom edge or when its
+ * path during a tick touches a wall, tested with the same Polygon.sweep() as
+ * the game. A press only jumps if the key was released before, so two jumps
+ * are at least two ticks apart.
+ *
+ * Positions and velocities in the game are always multiples of 0.5, so the
+ * search counts in half pixels and every mouse state is exact. It keeps all
+ * states of a tick at once, as one bitset over 2y per velocity: states with
+ * the same velocity all move by the same amount, so a whole row advances with
+ * one shift, and the states that die are pruned by masking the row with the
+ * field and the walls. Rows are kept per jump count, and a state only goes
+ * into the row of the fewest jumps that reach it; that memo keeps every tick
+ * down to the states that can occur, and leaves the answer in the first
+ * non-empty row of the last tick.
+ *
+ * Every wall has the same shape, so which heights a wall blocks depends only
+ * on how far it has scrolled and on the mouse's velocity, relative to the
+ * wall's own y. Those spans are found once per scroll speed and kept.
+ *
+ * Only the first chunk of a round starts from rest. Every later chunk starts
+ * with the mouse in flight between the walls of the chunk before, which are
+ * still scrolling at their own speed when the new chunk's first pair spawns.
+ * findExit() checks a chunk the way the game plays it: from every state the
+ * previous chunk's search left at that moment, with the previous chunk's
+ * walls in play, and hands back the states at its own end for the next chunk.
+ * A chunk's walls are past the mouse before the chunk after next begins on
+ * any field narrower than five wall spacings, so one previous chunk is
+ * enough.
+ *
+ * An oracle reuses its polygons and tables between calls, so each thread
+ * needs its own.
+ */
+public class ReachabilityOracle {
+	public static final double MOUSE_X = 100; // Where the game keeps the mouse
+	public static final double START_Y = 300; // Where the mouse starts a round
+	private static final int JUMP_VELOCITY = -18; // Twice the velocity a jump sets
+
+	private final int width, height; // Size of the playing field
+	private final int words; // Longs in a bitset over 2y
+	private final int rows; // Velocities kept, from JUMP_VELOCITY up to the fastest fall the field allows
+	private final int live; // Extra row of a layer: one bit per non-empty row
+	private final Polygon mouse = new Polygon(Simulation.createMouseShape(), new Point(MOUSE_X, START_Y), 0); // Moved to every height tested
+	private final Wall wall = new Wall(new Point(0, 0), false); // Stands in for every wall
+	private final double mouseLeft, mouseRight; // The mouse's x extent
+	private final double wallLeft, wallRight; // A wall's x extent relative to its position
+	private final long[] field; // The heights strictly inside the playing field
+	private final long[] moved; // Scratch row, all clear between two land() calls
+	private final long[] jumpers; // Scratch row: the states that may jump
+	private final long[][] seen; // Per velocity: next tick's states already reached with fewer jumps
+	private final HashMap<Double, Spans> spans = new HashMap<>(); // Blocked heights per scroll speed
+	private int pairs; // Wall pairs in play during the search
+	private long[] spawnTick = new long[8]; // Per pair in play: the tick it spawns on, from 1 for the chunk's first
+	private int[] topY = new int[8], bottomY = new int[8]; // Per pair in play: its walls' positions
+	private Spans[] pairSpans = new Spans[8]; // Per pair in play: the blocked heights at its speed
+	private ArrayList<long[][]> layers = new ArrayList<>(); // Per jump count: this tick's rows, and the live row
+	private ArrayList<long[][]> nextLayers = new ArrayList<>(); // Per jump count: next tick's rows, and the live row
+	private long statesVisited; // States reached by the last search
+
+	/**
+	 * The heights walls block for one scroll speed, relative to a wall's y, for
+	 * every tick a wall spends near the mouse and every velocity.
+	 */
+	private static final class Spans {
+		final int firstOffset; // Ticks after spawning that a wall first comes near the mouse
+		final int[][] low, high; // Per offset and velocity row: the blocked 2y, empty if low > high
+
+		/**
+		 * Constructs an empty table.
+		 *
+		 * @param inFirstOffset The first offset covered.
+		 * @param offsets       The number of offsets covered.
+		 * @param rows          The number of velocities covered.
+		 */
+		Spans(int inFirstOffset, int offsets, int rows) {
+			firstOffset = inFirstOffset;
+			low = new int[offsets][rows];
+			high = new int[offsets][rows];
+		}
+	}
+
+	/**
+	 * Constructs an oracle for a playing field.
+	 *
+	 * @param inWidth  The width of the playing field.
+	 * @param inHeight The height of the playing field.
+	 */
+	public ReachabilityOracle(int inWidth, int inHeight) {
+		width = inWidth;
+		height = inHeight;
+		words = height * 2 / 64 + 1;
+		// Falling the whole field, starting no faster than a jump, ends slower than this
+		rows = -JUMP_VELOCITY + (int) Math.ceil(Math.sqrt(4.0 * height + JUMP_VELOCITY * JUMP_VELOCITY)) + 1;
+		live = rows;
+		mouseLeft = mouse.getMinX();
+		mouseRight = mouse.getMaxX();
+		wallLeft = wall.getMinX() - wall.getPositionX();
+		wallRight = wall.getMaxX() - wall.getPositionX();
+		field = new long[words];
+		for (int doubleY = 1; doubleY < height * 2; doubleY++) {
+			field[doubleY >>> 6] |= 1L << doubleY; // The mouse dies on y <= 0 and y >= height
+		}
+		moved = new long[words];
+		jumpers = new long[words];
+		seen = new long[rows][words];
+	}
+
+	/**
+	 * Finds the fewest jumps that carry the mouse through a chunk, starting
+	 * from a round that just began at START_Y with the chunk's first pair.
+	 *
+	 * @param chunk The chunk.
+	 * @return The fewest jumps, or -1 if every way through hits a wall or an
+	 *         edge.
+	 */
+	public int minJumps(LevelChunk chunk) {
+		return minJumps(chunk, START_Y, 0);
+	}
+
+	/**
+	 * Finds the fewest jumps that carry the mouse through a chunk from a given
+	 * state, with the space key released. The chunk's first pair spawns on the
+	 * first tick; the search ends once the last pair is past the mouse.
+	 *
+	 * @param chunk    The chunk.
+	 * @param y        The mouse's starting y coordinate, a multiple of 0.5
+	 *                 inside the playing field.
+	 * @param velocity The mouse's starting velocity, a multiple of 0.5 from
+	 *                 -8.5 to 9.
+	 * @return The fewest jumps, or -1 if every way through hits a wall or an
+	 *         edge.
+	 */
+	public int minJumps(LevelChunk chunk, double y, double velocity) {
+		placeWalls(null, chunk);
+		startAt(y, velocity);
+		return search(true, 0, null);
+	}
+
+	/**
+	 * Checks whether the mouse can get through a chunk at all, starting from a
+	 * round that just began at START_Y with the chunk's first pair.
+	 *
+	 * @param chunk The chunk.
+	 * @return true if some way through survives, false otherwise.
+	 */
+	public boolean isClearable(LevelChunk chunk) {
+		return isClearable(chunk, START_Y, 0);
+	}
+
+	/**
+	 * Checks whether the mouse can get through a chunk at all from a given
+	 * state, with the space key released. This is much cheaper than counting
+	 * the jumps: all states share one layer, and while no wall is near the
+	 * mouse the states of a tick soon stop changing, since only the edges
+	 * still kill; from then on they stay the same until the next pair comes
+	 * near, and the search skips straight to it.
+	 *
+	 * @param chunk    The chunk.
+	 * @param y        The mouse's starting y coordinate, a multiple of 0.5
+	 *                 inside the playing field.
+	 * @param velocity The mouse's starting velocity, a multiple of 0.5 from
+	 *                 -8.5 to 9.
+	 * @return true if some way through survives, false otherwise.
+	 */
+	public boolean isClearable(LevelChunk chunk, double y, double velocity) {
+		placeWalls(null, chunk);
+		startAt(y, velocity);
+		return search(false, 0, null) >= 0;
+	}
+
+	/**
+	 * Checks whether the mouse can get through a chunk that follows another one,
+	 * starting from the states the previous chunk's check left.
+	 *
+	 * @param previous The chunk whose walls are in play when this one starts, or
+	 *                 null at the start of a round.
+	 * @param chunk    The chunk.
+	 * @return true if some way through survives, false otherwise.
+	 */
+	public boolean isClearable(LevelChunk previous, LevelChunk chunk) {
+		return findExit(previous, chunk) != null;
+	}
+
+	/**
+	 * Checks a chunk the way the game plays it and finds the states the mouse
+	 * can be in when the next chunk's first pair spawns. If the previous chunk
+	 * has an exit, the search starts from every state in it, with the previous
+	 * chunk's pairs still scrolling towards and past the mouse; otherwise it
+	 * starts from a round that just began at START_Y. Either way it runs until
+	 * the last pair of both chunks is past the mouse, so a chunk only passes if
+	 * some state at its end can still get through its own walls.
+	 *
+	 * @param previous The chunk whose walls are in play when this one starts, or
+	 *                 null at the start of a round.
+	 * @param chunk    The chunk.
+	 * @return The states at the chunk's end, for LevelChunk to keep, or null if
+	 *         every way through hits a wall or an edge.
+	 */
+	public long[] findExit(LevelChunk previous, LevelChunk chunk) {
+		long[] entry = previous == null ? null : previous.getExit();
+		placeWalls(entry == null ? null : previous, chunk);
+		if (entry == null) {
+			startAt(START_Y, 0);
+		} else {
+			startFrom(entry);
+		}
+		long[] exit = new long[rows * words];
+		return search(false, (long) chunk.getPairCount() * chunk.getInterval(), exit) >= 0 ? exit : null;
+	}
+
+	/**
+	 * Lists the wall pairs in play during a search: the previous chunk's, which
+	 * spawned before the chunk's first tick, then the chunk's own.
+	 *
+	 * @param previous The previous chunk, or null to play the chunk alone.
+	 * @param chunk    The chunk.
+	 */
+	private void placeWalls(LevelChunk previous, LevelChunk chunk) {
+		pairs = 0;
+		if (previous != null) {
+			long first = 1 - (long) previous.getPairCount() * previous.getInterval(); // Its next chunk starts on tick 1
+			placePairs(previous, first);
+		}
+		placePairs(chunk, 1);
+	}
+
+	/**
+	 * Adds the pairs of a chunk to the pairs in play.
+	 *
+	 * @param chunk The chunk.
+	 * @param first The tick its first pair spawns on.
+	 */
+	private void placePairs(LevelChunk chunk, long first) {
+		Spans blocked = spans.computeIfAbsent(chunk.getScrollSpeed(), this::findSpans);
+		for (int pair = 0; pair < chunk.getPairCount(); pair++) {
+			if (pairs == spawnTick.length) {
+				spawnTick = Arrays.copyOf(spawnTick, pairs * 2);
+				topY = Arrays.copyOf(topY, pairs * 2);
+				bottomY = Arrays.copyOf(bottomY, pairs * 2);
+				pairSpans = Arrays.copyOf(pairSpans, pairs * 2);
+			}
+			spawnTick[pairs] = first + (long) pair * chunk.getInterval();
+			topY[pairs] = chunk.getTopY(pair);
+			bottomY[pairs] = chunk.getBottomY(pair);
+			pairSpans[pairs] = blocked;
+			pairs++;
+		}
+	}
+
+	/**
+	 * Empties the layers and puts one state, with the space key released, into
+	 * the first.
+	 *
+	 * @param y        The mouse's y coordinate, a multiple of 0.5 inside the
+	 *                 playing field.
+	 * @param velocity The mouse's velocity, a multiple of 0.5 from -8.5 to 9.
+	 */
+	private void startAt(double y, double velocity) {
+		int startY = (int) Math.round(y * 2);
+		int startRow = (int) Math.round(velocity * 2) - JUMP_VELOCITY;
+		if (startY <= 0 || startY >= height * 2 || startRow < 1 || startRow > -2 * JUMP_VELOCITY) {
+			throw new IllegalArgumentException("the mouse cannot start at y " + y + " with velocity " + velocity);
+		}
+		clear(layers, 0, layers.size() - 1);
+		clear(nextLayers, 0, nextLayers.size() - 1);
+		long[][] start = layer(layers, 0);
+		start[startRow][startY >>> 6] = 1L << startY;
+		start[live][startRow >>> 6] = 1L << startRow;
+		statesVisited = 1;
+	}
+
+	/**
+	 * Empties the layers and puts the states of a chunk's exit into the first.
+	 *
+	 * @param states The exit, as findExit() gives it.
+	 */
+	private void startFrom(long[] states) {
+		if (states.length != rows * words) {
+			throw new IllegalArgumentException("the exit was found on a playing field of another height");
+		}
+		clear(layers, 0, layers.size() - 1);
+		clear(nextLayers, 0, nextLayers.size() - 1);
+		long[][] start = layer(layers, 0);
+		statesVisited = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int w = 0; w < words; w++) {
+				long bits = states[row * words + w];
+				if (bits != 0) {
+					start[row][w] = bits;
+					start[live][row >>> 6] |= 1L << row;
+					statesVisited += Long.bitCount(bits);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Plays the pairs in play forward from the states in the first layer, tick
+	 * by tick, with every state the mouse can be in.
+	 *
+	 * @param countJumps True to keep the states apart by jump count; false to
+	 *                   keep them all in layer 0 and skip the ticks where they
+	 *                   stay the same.
+	 * @param exitTick   The tick after which to copy the states into exit.
+	 * @param exit       Where to copy them, row after row, or null.
+	 * @return The fewest jumps through, 0 if not counted, or -1 if every way
+	 *         through dies.
+	 */
+	private int search(boolean countJumps, long exitTick, long[] exit) {
+		long end = exitTick; // The last pair is past the mouse, and the exit reached
+		for (int pair = 0; pair < pairs; pair++) {
+			end = Math.max(end, spawnTick[pair] + pairSpans[pair].firstOffset + pairSpans[pair].low.length - 1);
+		}
+		boolean exited = exit == null;
+		int fewest = 0, most = 0; // Jump counts of the first and last non-empty layers
+		for (long tick = 1; tick <= end; tick++) {
+			if (countJumps) {
+				for (long[] row : seen) {
+					Arrays.fill(row, 0);
+				}
+			}
+			int nextFewest = -1, nextMost = -1;
+			// Fewest jumps first, so each state is memoized with its fewest
+			for (int jumps = fewest; jumps <= (countJumps ? most + 1 : 0); jumps++) {
+				long[][] to = layer(nextLayers, jumps);
+				if (jumps <= most) {
+					long[][] from = layers.get(jumps);
+					for (int row = nextRow(from, 0); row >= 0 && row + 1 < rows; row = nextRow(from, row + 1)) {
+						// Fall: one velocity faster, moved by that velocity
+						land(from[row], to, row + 1, JUMP_VELOCITY + row + 1, tick, countJumps);
+					}
+				}
+				if (jumps > fewest || !countJumps) {
+					long[][] from = layers.get(countJumps ? jumps - 1 : jumps);
+					int row = nextRow(from, 1);
+					if (row >= 0) {
+						// Jump: every velocity becomes the same, so the rows move as one
+						System.arraycopy(from[row], 0, jumpers, 0, words);
+						for (row = nextRow(from, row + 1); row >= 0; row = nextRow(from, row + 1)) {
+							for (int w = 0; w < words; w++) {
+								jumpers[w] |= from[row][w];
+							}
+						}
+						// Row 0 holds the states that just jumped and still hold the key
+						land(jumpers, to, 0, JUMP_VELOCITY, tick, countJumps);
+					}
+				}
+				if (!isEmpty(to[live])) {
+					nextFewest = nextFewest < 0 ? jumps : nextFewest;
+					nextMost = jumps;
+				}
+			}
+			if (nextFewest >= 0 && !countJumps && nearTick(tick) > tick
+					&& isSame(layers.get(0), nextLayers.get(0))) {
+				// Settled with no wall near: nothing changes until the next pair comes
+				long near = nearTick(tick);
+				if (near > end) {
+					if (!exited) {
+						copy(layers.get(0), exit); // The same on every tick from here on
+					}
+					return 0;
+				}
+				tick = near - 1;
+			}
+			clear(layers, fewest, most); // Reused two ticks on
+			ArrayList<long[][]> swap = layers;
+			layers = nextLayers;
+			nextLayers = swap;
+			if (nextFewest < 0) {
+				return -1;
+			}
+			fewest = nextFewest;
+			most = nextMost;
+			if (!exited && tick >= exitTick) {
+				copy(layers.get(0), exit); // A skip past exitTick kept the states as they were on it
+				exited = true;
+			}
+		}
+		return countJumps ? fewest : 0;
+	}
+
+	/**
+	 * Finds the first tick, from a given one on, on which some wall in play is
+	 * near enough to the mouse to block it.
+	 *
+	 * @param tick The tick to start from.
+	 * @return The tick, or Long.MAX_VALUE if every pair is already past.
+	 */
+	private long nearTick(long tick) {
+		long near = Long.MAX_VALUE;
+		for (int pair = 0; pair < pairs; pair++) {
+			long first = spawnTick[pair] + pairSpans[pair].firstOffset;
+			if (tick < first + pairSpans[pair].low.length) {
+				near = Math.min(near, Math.max(tick, first));
+			}
+		}
+		return near;
+	}
+
+	/**
+	 * Copies the rows of a layer into an exit, row after row.
+	 *
+	 * @param layer The layer.
+	 * @param exit  Where to copy it.
+	 */
+	private void copy(long[][] layer, long[] exit) {
+		Arrays.fill(exit, 0);
+		for (int row = nextRow(layer, 0); row >= 0; row = nextRow(layer, row + 1)) {
+			System.arraycopy(layer[row], 0, exit, row * words, words);
+		}
+	}
+
+	/**
+	 * Retrieves the width of the playing field the oracle plays on.
+	 *
+	 * @return The width.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of the playing field the oracle plays on.
+	 *
+	 * @return The height.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Retrieves the number of states the last search reached, each counted on
+	 * every tick it was reached. Ticks skipped by isClearable() are not
+	 * counted.
+	 *
+	 * @return The number of states.
+	 */
+	public long getStatesVisited() {
+		return statesVisited;
+	}
+
+	/**
+	 * Moves a row of states by one tick's motion, drops the states that leave
+	 * the field, touch a wall or were already reached with fewer jumps, and
+	 * adds the rest to a row of the next tick.
+	 *
+	 * @param from       This tick's row.
+	 * @param to         The next tick's rows for the jump count.
+	 * @param row        The next tick's row to add to.
+	 * @param velocity   Twice the velocity during the tick, which is how far
+	 *                   the states move.
+	 * @param tick       The tick being played, from 1.
+	 * @param countJumps Whether the states are kept apart by jump count; if not,
+	 *                   the row added to is its own memo.
+	 */
+	private void land(long[] from, long[][] to, int row, int velocity, long tick, boolean countJumps) {
+		// Only the words the row's states can move into need work
+		int lowest = 0, highest = words - 1;
+		while (lowest < words && from[lowest] == 0) {
+			lowest++;
+		}
+		while (highest > lowest && from[highest] == 0) {
+			highest--;
+		}
+		int first = Math.max(0, lowest + (velocity >> 6)), last = Math.min(words, highest + (velocity >> 6) + 2);
+		shift(from, velocity, moved, first, last);
+		long[] memo = countJumps ? seen[row] : to[row];
+		for (int w = first; w < last; w++) {
+			moved[w] &= field[w] & ~memo[w];
+		}
+		for (int pair = 0; pair < pairs; pair++) {
+			Spans blocked = pairSpans[pair];
+			long offset = tick - spawnTick[pair] - blocked.firstOffset;
+			if (offset >= 0 && offset < blocked.low.length) {
+				int low = blocked.low[(int) offset][row], high = blocked.high[(int) offset][row];
+				clearRange(moved, topY[pair] * 2 + low, topY[pair] * 2 + high);
+				clearRange(moved, bottomY[pair] * 2 + low, bottomY[pair] * 2 + high);
+			}
+		}
+		long[] target = to[row];
+		for (int w = first; w < last; w++) {
+			long bits = moved[w];
+			if (bits != 0) {
+				target[w] |= bits;
+				memo[w] |= bits;
+				statesVisited += Long.bitCount(bits);
+				to[live][row >>> 6] |= 1L << row;
+				moved[w] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Finds the next non-empty row of a layer.
+	 *
+	 * @param layer The layer.
+	 * @param row   The row to start looking at.
+	 * @return The first non-empty row from there, or -1 if there is none.
+	 */
+	private int nextRow(long[][] layer, int row) {
+		long[] bitsOfRows = layer[live];
+		for (int w = row >>> 6; w < bitsOfRows.length && row < rows; w++, row = w << 6) {
+			long bits = bitsOfRows[w] & (-1L << row);
+			if (bits != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(bits);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds which heights a wall blocks on every tick it is near the mouse,
+	 * for every velocity, at one scroll speed. With the wall's scroll and the
+	 * mouse's velocity fixed, the heights whose path touches the wall form a
+	 * single span, because the wall and the area the mouse sweeps are both
+	 * convex; its ends are found by binary search with sweep().
+	 *
+	 * @param speed The scroll speed.
+	 * @return The blocked spans.
+	 */
+	private Spans findSpans(double speed) {
+		// Relative to the wall, the mouse starts each tick one scroll step to the left
+		int first = (int) Math.max(0, Math.floor((width + wallLeft - mouseRight) / speed));
+		int last = (int) Math.ceil((width + wallRight - mouseLeft + speed) / speed);
+		Spans blocked = new Spans(first, last - first + 1, rows);
+		for (int k = 0; k <= last - first; k++) {
+			wall.setPosition(width - (first + k) * speed, 0);
+			mouse.setPosition(MOUSE_X, (wall.getMinY() + wall.getMaxY()) / 2);
+			boolean across = mouse.sweptBoundsOverlap(wall, speed, 0); // False if the x extents miss
+			for (int row = 0; row < rows; row++) {
+				if (!across) {
+					blocked.low[k][row] = 1;
+					blocked.high[k][row] = 0;
+					continue;
+				}
+				double dy = (JUMP_VELOCITY + row) / 2.0;
+				// The swept boxes bound the span
+				mouse.setPosition(MOUSE_X, 0);
+				int outerLow = (int) Math.floor(2 * (wall.getMinY() - mouse.getMaxY() - Math.abs(dy))) - 1;
+				int outerHigh = (int) Math.ceil(2 * (wall.getMaxY() - mouse.getMinY() + Math.abs(dy))) + 1;
+				int inside = findInside(outerLow, outerHigh, speed, dy);
+				if (inside == Integer.MIN_VALUE) {
+					blocked.low[k][row] = 1;
+					blocked.high[k][row] = 0;
+					continue;
+				}
+				int clear = outerLow; // Known to miss the wall
+				int touching = inside; // Known to touch it
+				while (touching - clear > 1) {
+					int mid = (clear + touching) >> 1;
+					if (touches(mid, speed, dy)) {
+						touching = mid;
+					} else {
+						clear = mid;
+					}
+				}
+				blocked.low[k][row] = touching;
+				touching = inside;
+				clear = outerHigh;
+				while (clear - touching > 1) {
+					int mid = (clear + touching) >> 1;
+					if (touches(mid, speed, dy)) {
+						touching = mid;
+					} else {
+						clear = mid;
+					}
+				}
+				blocked.high[k][row] = touching;
+			}
+		}
+		return blocked;
+	}
+
+	/**
+	 * Finds some height whose path touches the stand-in wall, trying coarse
+	 * steps before every half pixel.
+	 *
+	 * @param low   The lowest 2y to try.
+	 * @param high  The highest 2y to try.
+	 * @param speed The scroll speed.
+	 * @param dy    How far the mouse moves during the tick.
+	 * @return A touching 2y, or Integer.MIN_VALUE if there is none.
+	 */
+	private int findInside(int low, int high, double speed, double dy) {
+		for (int step = 32; step >= 1; step /= 32) {
+			for (int doubleY = low; doubleY <= high; doubleY += step) {
+				if (touches(doubleY, speed, dy)) {
+					return doubleY;
+				}
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Tests whether the mouse, ending a tick at a given height, touched the
+	 * stand-in wall during it.
+	 *
+	 * @param doubleY Twice the mouse's y coordinate at the end of the tick.
+	 * @param speed   The scroll speed.
+	 * @param dy      How far the mouse moved during the tick.
+	 * @return true if its path touched the wall, false otherwise.
+	 */
+	private boolean touches(int doubleY, double speed, double dy) {
+		mouse.setPosition(MOUSE_X, doubleY / 2.0);
+		return mouse.sweptBoundsOverlap(wall, speed, dy) && mouse.sweep(wall, speed, dy) >= 0;
+	}
+
+	/**
+	 * Retrieves the rows for a jump count, adding empty ones up to it.
+	 *
+	 * @param list  The layers of a tick.
+	 * @param jumps The jump count.
+	 * @return The rows.
+	 */
+	private long[][] layer(ArrayList<long[][]> list, int jumps) {
+		while (list.size() <= jumps) {
+			long[][] layer = new long[rows + 1][];
+			for (int row = 0; row < rows; row++) {
+				layer[row] = new long[words];
+			}
+			layer[live] = new long[(rows + 63) / 64];
+			list.add(layer);
+		}
+		return list.get(jumps);
+	}
+
+	/**
+	 * Empties the rows of a range of jump counts.
+	 *
+	 * @param list  The layers of a tick.
+	 * @param first The first jump count.
+	 * @param last  The last jump count.
+	 */
+	private void clear(ArrayList<long[][]> list, int first, int last) {
+		for (int jumps = first; jumps <= last && jumps < list.size(); jumps++) {
+			long[][] layer = list.get(jumps);
+			for (int row = nextRow(layer, 0); row >= 0; row = nextRow(layer, row + 1)) {
+				Arrays.fill(layer[row], 0);
+			}
+			Arrays.fill(layer[live], 0);
+		}
+	}
+
+	/**
+	 * Shifts a bitset over 2y, writing only some words of the result.
+	 *
+	 * @param from  The bitset.
+	 * @param by    How many half pixels to move down; negative moves up.
+	 * @param to    Where to write the result.
+	 * @param first The first word to write.
+	 * @param last  One past the last word to write; the bits of from that
+	 *              land in these words must all lie within it.
+	 */
+	private void shift(long[] from, int by, long[] to, int first, int last) {
+		int wordShift = by >> 6, bitShift = by & 63, carry = 64 - bitShift;
+		for (int w = first; w < last; w++) {
+			int source = w - wordShift;
+			long bits = source < words ? from[source] << bitShift : 0;
+			if (bitShift != 0 && source > 0) {
+				bits |= from[source - 1] >>> carry; // The bits carried up from the word below
+			}
+			to[w] = bits;
+		}
+	}
+
+	/**
+	 * Checks whether two layers hold the same states.
+	 *
+	 * @param a One layer.
+	 * @param b The other.
+	 * @return true if every row is the same.
+	 */
+	private boolean isSame(long[][] a, long[][] b) {
+		if (!Arrays.equals(a[live], b[live])) {
+			return false;
+		}
+		for (int row = nextRow(a, 0); row >= 0; row = nextRow(a, row + 1)) {
+			if (!Arrays.equals(a[row], b[row])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether a bitset is empty.
+	 *
+	 * @param bits The bitset.
+	 * @return true if no bit is set.
+	 */
+	private static boolean isEmpty(long[] bits) {
+		for (long word : bits) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Clears a span of bits, clipped to the bitset.
+	 *
+	 * @param bits The bitset.
+	 * @param low  The first bit.
+	 * @param high The last bit.
+	 */
+	private static void clearRange(long[] bits, int low, int high) {
+		low = Math.max(0, low);
+		high = Math.min(bits.length * 64 - 1, high);
+		if (low > high) {
+			return;
+		}
+		int first = low >>> 6, last = high >>> 6;
+		long firstMask = -1L << low, lastMask = -1L >>> (63 - (high & 63));
+		if (first == last) {
+			bits[first] &= ~(firstMask & lastMask);
+			return;
+		}
+		bits[first] &= ~firstMask;
+		Arrays.fill(bits, first + 1, last, 0);
+		bits[last] &= ~lastMask;
+	}
+}
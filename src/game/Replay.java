@@ -0,0 +1,102 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The Replay class plays a recorded game again. It is an input policy that
+ * hands a simulation the recorded keys of every tick, so a replay can be
+ * stepped headlessly as fast as the CPU allows or advanced by the window at
+ * any playback rate. The simulation must start from the recorded seed and
+ * tick 0; newSimulation() creates one.
+ */
+public class Replay implements InputPolicy {
+	private final InputRecording recording; // The game being replayed
+	private int next; // Index of the next input change to apply
+	private int input; // Keys held down since the last change applied
+
+	/**
+	 * Constructs a replay of a recording.
+	 *
+	 * @param inRecording The recording to replay.
+	 */
+	public Replay(InputRecording inRecording) {
+		recording = inRecording;
+	}
+
+	/**
+	 * Creates a simulation in the state the recording started from.
+	 *
+	 * @return A fresh simulation with the recorded seed and playing field.
+	 */
+	public Simulation newSimulation() {
+		return new Simulation(recording.getWidth(), recording.getHeight(), recording.getSeed());
+	}
+
+	/**
+	 * Retrieves the recording being replayed.
+	 *
+	 * @return The recording.
+	 */
+	public InputRecording getRecording() {
+		return recording;
+	}
+
+	/**
+	 * Hands out the recorded keys of the tick about to be stepped.
+	 *
+	 * @param simulation The simulation being replayed.
+	 * @return The keys held down (Input flags).
+	 */
+	@Override
+	public int nextInput(Simulation simulation) {
+		long tick = simulation.getTick() + 1;
+		while (next < recording.size() && recording.getTick(next) <= tick) {
+			input = recording.getInput(next++);
+		}
+		return input;
+	}
+
+	/**
+	 * Checks whether every recorded tick has been replayed.
+	 *
+	 * @param simulation The simulation being replayed.
+	 * @return true if the replay is over, false otherwise.
+	 */
+	public boolean isFinished(Simulation simulation) {
+		return simulation.getTick() >= recording.getTickCount();
+	}
+
+	/**
+	 * Replays a whole recording headlessly, as fast as possible.
+	 *
+	 * @param recording The recording to replay.
+	 * @return The simulation in the state the recorded game ended in.
+	 */
+	public static Simulation run(InputRecording recording) {
+		Replay replay = new Replay(recording);
+		Simulation simulation = replay.newSimulation();
+		while (!replay.isFinished(simulation)) {
+			simulation.step(replay.nextInput(simulation));
+		}
+		return simulation;
+	}
+
+	/**
+	 * Replays a recording file headlessly and prints how the game ended, for
+	 * example to check a high score.
+	 *
+	 * @param args The recording file.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		InputRecording recording = InputRecording.load(Paths.get(args[0]));
+		long start = System.nanoTime();
+		Simulation simulation = run(recording);
+		double millis = (System.nanoTime() - start) / 1e6;
+		System.out.printf("seed %d, %d ticks, %d input changes replayed in %.1f ms%n", recording.getSeed(),
+				simulation.getTick(), recording.size(), millis);
+		System.out.printf("score %d, high score %d, level %d%n", simulation.getCounter(),
+				simulation.getHighestScore(), simulation.getCurrentLevel());
+	}
+}
@@ -0,0 +1,51 @@
+package game;
+
+/**
+ * The ReplayFormat class describes the replay file format written by
+ * ReplayWriter and read by ReplayReader. All numbers are big-endian; a varint
+ * is an unsigned number in 7-bit groups, low group first, with the high bit
+ * set on every byte but the last. A file holds one game and has four parts:
+ *
+ * <pre>
+ * header     HEADER_SIZE bytes:
+ *            int   MAGIC
+ *            short VERSION
+ *            short reserved, 0
+ *            long  seed
+ *            int   width, height
+ *            long  number of ticks
+ *            int   number of input changes
+ *            int   ticks between keyframes
+ *            int   number of keyframes
+ *            long  offset of the inputs
+ *            long  offset of the keyframe index
+ * inputs     one varint per input change: (ticks since the previous change
+ *            &lt;&lt; INPUT_BITS) | keys held from then on (Input flags)
+ * keyframes  one record per keyframe:
+ *            int   index of the next input change
+ *            long  offset of the next input change
+ *            long  tick of the last input change applied
+ *            byte  keys held down at the keyframe
+ *            the game state written by Simulation.writeSnapshot()
+ * index      per keyframe: long tick, long offset of its record
+ * </pre>
+ *
+ * The input changes are what a replay needs; the keyframes let a reader jump
+ * into the middle of a game without simulating everything before it. A replay
+ * only reproduces its game under the rules it was recorded with, so files
+ * older than OLDEST_VERSION are refused rather than played wrong.
+ */
+public final class ReplayFormat {
+	public static final int MAGIC = 0x454D5250; // "EMRP"
+	public static final short VERSION = 4; // Version written by ReplayWriter; 2 has chunked level layouts, 3 one chunk per death, 4 chunks checked from the one before
+	public static final short OLDEST_VERSION = 4; // Oldest version whose games this build still plays the same
+	public static final int HEADER_SIZE = 64; // Bytes before the inputs, including padding
+	public static final int INPUT_BITS = 3; // Bits of an input change holding the keys
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 6000; // One keyframe per minute of game time
+
+	/**
+	 * ReplayFormat only holds constants, so it is never instantiated.
+	 */
+	private ReplayFormat() {
+	}
+}
@@ -0,0 +1,293 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ReplayReader class reads a replay file (see ReplayFormat) through a
+ * memory mapping. The inputs are decoded straight from the mapped pages one
+ * change at a time as a simulation asks for them, so even a huge replay is
+ * never copied onto the heap. Like Replay, the reader is an input policy; on
+ * top of that, seek() uses the keyframe index to jump into the middle of the
+ * game and only simulates the ticks since the nearest keyframe.
+ *
+ * A mapping covers at most 2 GB, which is many years of game time.
+ */
+public class ReplayReader implements InputPolicy {
+	private static final int INDEX_ENTRY_SIZE = 16; // long tick, long offset
+
+	private final ByteBuffer buffer; // The mapped file
+	private final int version; // Format version of the file
+	private final long seed; // Seed of the recorded simulation
+	private final int width, height; // Size of the playing field
+	private final long tickCount; // Number of ticks recorded
+	private final int changeCount; // Number of input changes
+	private final int keyframeInterval; // Ticks between keyframes, or 0
+	private final int keyframeCount; // Number of keyframes
+	private final long inputsOffset; // Offset of the first input change
+	private final long indexOffset; // Offset of the keyframe index
+
+	private long position; // Offset of the next input change not yet decoded
+	private int decoded; // Number of input changes decoded
+	private long lastTick; // Tick of the last input change decoded
+	private long pendingTick = Long.MAX_VALUE; // Tick of the decoded change not yet applied
+	private int pendingInput; // Keys held down from that change on
+	private int input; // Keys held down since the last change applied
+
+	/**
+	 * Opens a replay file by mapping it into memory.
+	 *
+	 * @param file The file to read.
+	 * @return A reader positioned at the start of the game.
+	 * @throws IOException If the file cannot be read or is not a replay file.
+	 */
+	public static ReplayReader open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is too large to map");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new ReplayReader(buffer);
+		}
+	}
+
+	/**
+	 * Constructs a reader over a replay held in a buffer.
+	 *
+	 * @param inBuffer The whole replay file; it is read with absolute gets only.
+	 * @throws IOException If the buffer does not hold a replay this reader
+	 *                     understands.
+	 */
+	public ReplayReader(ByteBuffer inBuffer) throws IOException {
+		buffer = inBuffer;
+		if (buffer.limit() < ReplayFormat.HEADER_SIZE || buffer.getInt(0) != ReplayFormat.MAGIC) {
+			throw new IOException("not a replay file");
+		}
+		version = buffer.getShort(4);
+		if (version > ReplayFormat.VERSION) {
+			throw new IOException("replay format version " + version + " is newer than " + ReplayFormat.VERSION);
+		}
+		if (version < ReplayFormat.OLDEST_VERSION) {
+			throw new IOException("replay format version " + version + " was recorded with older wall layouts");
+		}
+		seed = buffer.getLong(8);
+		width = buffer.getInt(16);
+		height = buffer.getInt(20);
+		tickCount = buffer.getLong(24);
+		changeCount = buffer.getInt(32);
+		keyframeInterval = buffer.getInt(36);
+		keyframeCount = buffer.getInt(40);
+		inputsOffset = buffer.getLong(44);
+		indexOffset = buffer.getLong(52);
+		if (indexOffset + (long) keyframeCount * INDEX_ENTRY_SIZE > buffer.limit()) {
+			throw new IOException("replay file is truncated");
+		}
+		rewind();
+	}
+
+	/**
+	 * Creates a simulation at the start of the recorded game and moves the input
+	 * cursor back to the first tick.
+	 *
+	 * @return A fresh simulation with the recorded seed and playing field.
+	 */
+	public Simulation newSimulation() {
+		rewind();
+		return new Simulation(width, height, seed);
+	}
+
+	/**
+	 * Creates a simulation in the state the recorded game was in after a given
+	 * tick, and positions the input cursor there. The game is restored from the
+	 * last keyframe at or before that tick and simulated from there.
+	 *
+	 * @param tick The tick to jump to, from 0 to getTickCount().
+	 * @return A simulation ready to continue from that tick.
+	 */
+	public Simulation seek(long tick) {
+		Simulation simulation = new Simulation(width, height, seed);
+		int keyframe = findKeyframe(tick);
+		if (keyframe < 0) {
+			rewind();
+		} else {
+			ByteBuffer record = buffer.duplicate(); // A second view of the mapping, not a copy
+			record.position((int) buffer.getLong((int) (indexOffset + (long) keyframe * INDEX_ENTRY_SIZE + 8)));
+			decoded = record.getInt();
+			position = record.getLong();
+			lastTick = record.getLong();
+			input = record.get();
+			simulation.readSnapshot(record);
+			decodeNext();
+		}
+		while (simulation.getTick() < tick) {
+			simulation.step(nextInput(simulation));
+		}
+		return simulation;
+	}
+
+	/**
+	 * Hands out the recorded keys of the tick about to be stepped. The simulation
+	 * must be stepped tick by tick from newSimulation() or seek().
+	 *
+	 * @param simulation The simulation being replayed.
+	 * @return The keys held down (Input flags).
+	 */
+	@Override
+	public int nextInput(Simulation simulation) {
+		long tick = simulation.getTick() + 1;
+		while (pendingTick <= tick) {
+			input = pendingInput;
+			decodeNext();
+		}
+		return input;
+	}
+
+	/**
+	 * Checks whether every recorded tick has been replayed.
+	 *
+	 * @param simulation The simulation being replayed.
+	 * @return true if the replay is over, false otherwise.
+	 */
+	public boolean isFinished(Simulation simulation) {
+		return simulation.getTick() >= tickCount;
+	}
+
+	/**
+	 * Decodes all input changes into an in-memory recording.
+	 *
+	 * @return The recording.
+	 */
+	public InputRecording toRecording() {
+		InputRecording recording = new InputRecording(seed, width, height);
+		rewind();
+		while (pendingTick != Long.MAX_VALUE) {
+			recording.record(pendingTick, pendingInput);
+			decodeNext();
+		}
+		recording.record(tickCount, recording.size() == 0 ? Input.NONE : recording.getInput(recording.size() - 1));
+		rewind();
+		return recording;
+	}
+
+	/**
+	 * Retrieves the format version of the file.
+	 *
+	 * @return The version.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Retrieves the seed of the recorded simulation.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the number of ticks recorded.
+	 *
+	 * @return The number of ticks.
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Retrieves the number of input changes recorded.
+	 *
+	 * @return The number of changes.
+	 */
+	public int getChangeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Retrieves the number of ticks between keyframes.
+	 *
+	 * @return The keyframe interval, or 0 if the file has no keyframes.
+	 */
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+	/**
+	 * Retrieves the number of keyframes.
+	 *
+	 * @return The number of keyframes.
+	 */
+	public int getKeyframeCount() {
+		return keyframeCount;
+	}
+
+	/**
+	 * Retrieves the tick a keyframe was taken after.
+	 *
+	 * @param keyframe The index of the keyframe.
+	 * @return The tick.
+	 */
+	public long getKeyframeTick(int keyframe) {
+		return buffer.getLong((int) (indexOffset + (long) keyframe * INDEX_ENTRY_SIZE));
+	}
+
+	/**
+	 * Finds the last keyframe at or before a tick by binary search.
+	 *
+	 * @param tick The tick.
+	 * @return The index of the keyframe, or -1 if there is none.
+	 */
+	private int findKeyframe(long tick) {
+		int low = 0, high = keyframeCount - 1, found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (getKeyframeTick(middle) <= tick) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Moves the input cursor back to the first tick.
+	 */
+	private void rewind() {
+		position = inputsOffset;
+		decoded = 0;
+		lastTick = 0;
+		input = Input.NONE;
+		decodeNext();
+	}
+
+	/**
+	 * Decodes the next input change into pendingTick and pendingInput, or sets
+	 * pendingTick to Long.MAX_VALUE if there is none left.
+	 */
+	private void decodeNext() {
+		if (decoded == changeCount) {
+			pendingTick = Long.MAX_VALUE;
+			return;
+		}
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = buffer.get((int) position++);
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		decoded++;
+		lastTick += value >>> ReplayFormat.INPUT_BITS;
+		pendingTick = lastTick;
+		pendingInput = (int) (value & ((1 << ReplayFormat.INPUT_BITS) - 1));
+	}
+}
@@ -0,0 +1,136 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ReplayWriter class turns an InputRecording into a replay file (see
+ * ReplayFormat). To build the keyframes it plays the recording once
+ * headlessly and snapshots the game at every keyframe tick.
+ */
+public final class ReplayWriter {
+	/**
+	 * ReplayWriter only holds static helpers, so it is never instantiated.
+	 */
+	private ReplayWriter() {
+	}
+
+	/**
+	 * Writes a recording with the default keyframe interval.
+	 *
+	 * @param recording The recording to write.
+	 * @param file      The file to write, replaced if it exists.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void write(InputRecording recording, Path file) throws IOException {
+		write(recording, file, ReplayFormat.DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * Writes a recording. Another thread may still be recording; everything up to
+	 * the tick count read at the start is written.
+	 *
+	 * @param recording        The recording to write.
+	 * @param file             The file to write, replaced if it exists.
+	 * @param keyframeInterval Ticks between keyframes, or 0 for none.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void write(InputRecording recording, Path file, int keyframeInterval) throws IOException {
+		long tickCount = recording.getTickCount(); // Read before size, so every change up to it is there
+		int changes = recording.size();
+		while (changes > 0 && recording.getTick(changes - 1) > tickCount) {
+			changes--;
+		}
+
+		// Encode the inputs, remembering where each change starts
+		ByteArrayOutputStream inputs = new ByteArrayOutputStream(changes * 2);
+		long[] starts = new long[changes + 1];
+		long previous = 0;
+		for (int i = 0; i < changes; i++) {
+			starts[i] = ReplayFormat.HEADER_SIZE + inputs.size();
+			long tick = recording.getTick(i);
+			if ((recording.getInput(i) >>> ReplayFormat.INPUT_BITS) != 0) {
+				throw new IllegalArgumentException("input " + recording.getInput(i) + " does not fit the format");
+			}
+			writeVarLong(inputs, (tick - previous) << ReplayFormat.INPUT_BITS | recording.getInput(i));
+			previous = tick;
+		}
+		starts[changes] = ReplayFormat.HEADER_SIZE + inputs.size();
+		long keyframesOffset = starts[changes];
+
+		// Play the game once and snapshot it at every keyframe tick
+		ByteArrayOutputStream keyframes = new ByteArrayOutputStream();
+		DataOutputStream keyframeOut = new DataOutputStream(keyframes);
+		int keyframeCount = keyframeInterval <= 0 ? 0 : (int) (tickCount / keyframeInterval);
+		long[] keyframeTicks = new long[keyframeCount];
+		long[] keyframeOffsets = new long[keyframeCount];
+		if (keyframeCount > 0) {
+			Simulation simulation = new Simulation(recording.getWidth(), recording.getHeight(), recording.getSeed());
+			int next = 0; // Next change to apply
+			int input = Input.NONE; // Keys held down
+			long lastTick = 0; // Tick of the last change applied
+			for (int k = 0; k < keyframeCount; k++) {
+				long keyframeTick = (long) (k + 1) * keyframeInterval;
+				while (simulation.getTick() < keyframeTick) {
+					long tick = simulation.getTick() + 1;
+					while (next < changes && recording.getTick(next) <= tick) {
+						input = recording.getInput(next);
+						lastTick = recording.getTick(next);
+						next++;
+					}
+					simulation.step(input);
+				}
+				keyframeTicks[k] = keyframeTick;
+				keyframeOffsets[k] = keyframesOffset + keyframes.size();
+				keyframeOut.writeInt(next);
+				keyframeOut.writeLong(starts[next]);
+				keyframeOut.writeLong(lastTick);
+				keyframeOut.writeByte(input);
+				simulation.writeSnapshot(keyframeOut);
+			}
+		}
+		long indexOffset = keyframesOffset + keyframes.size();
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(ReplayFormat.MAGIC);
+			out.writeShort(ReplayFormat.VERSION);
+			out.writeShort(0);
+			out.writeLong(recording.getSeed());
+			out.writeInt(recording.getWidth());
+			out.writeInt(recording.getHeight());
+			out.writeLong(tickCount);
+			out.writeInt(changes);
+			out.writeInt(Math.max(0, keyframeInterval));
+			out.writeInt(keyframeCount);
+			out.writeLong(ReplayFormat.HEADER_SIZE);
+			out.writeLong(indexOffset);
+			while (out.size() < ReplayFormat.HEADER_SIZE) {
+				out.writeByte(0); // Padding for later header fields
+			}
+			inputs.writeTo(out);
+			keyframes.writeTo(out);
+			for (int k = 0; k < keyframeCount; k++) {
+				out.writeLong(keyframeTicks[k]);
+				out.writeLong(keyframeOffsets[k]);
+			}
+		}
+	}
+
+	/**
+	 * Appends an unsigned varint.
+	 *
+	 * @param out   Where to append the bytes.
+	 * @param value The value, treated as unsigned.
+	 */
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+}
@@ -0,0 +1,885 @@
+package game;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * The Simulation class is the headless core of the game. It owns the mouse,
+ * the cheese and the walls and advances them one fixed tick at a time. It never
+ * touches a window or a graphics context, so it can be stepped as fast as the
+ * CPU allows, and rendering is left to whoever wants to observe its state. All
+ * game state lives in the instance, so any number of sessions can run side by
+ * side in one JVM, each on its own thread.
+ */
+public class Simulation {
+	public static final long TICK_NANOS = 10_000_000L; // Length of one fixed tick (100 ticks per second)
+	public static final int MAX_TICKS_PER_ADVANCE = 25; // Catch-up limit for a single advance() call
+	public static final double CELL_SIZE = 50; // Size of one spatial grid cell, in pixels
+	public static final double SCROLL_SPEED = 0.9; // Pixels the walls and cheeses move left per tick on level 0
+
+	protected final int width, height; // Size of the playing field
+	int counter = 0; // Counter for keeping track of the score
+	boolean pauseCounter = true; // Flag to control whether the game counter is paused
+	int wallTime = 0; // Ticks since the last wall pair was created
+	boolean needsReset = false; // Boolean flag to indicate whether the game needs to be reset
+	Leaderboard leaderboard = new Leaderboard(16, 1024); // Scores of this session's games, unless shared
+	final Level level = new Level(); // Current level of this session
+	Mouse mouse; // Instance of the Mouse class
+	Cheese cheese; // Instance of Cheese class for collecting points
+	ArrayList<Cheese> cheeses; // List to hold Cheese objects
+	ArrayList<Wall> walls; // List to hold Wall objects
+	SpatialGrid grid; // Index of the walls and cheeses by screen cell
+	ObstacleStore obstacles; // Transforms of the walls and cheeses, in flat arrays
+	ObstaclePool pool; // Walls and cheeses that left the game, ready for reuse
+	GameRandom random; // Shared random number generator for everything spawned
+	final TickProfiler profiler = new TickProfiler(); // Times each phase of a tick while switched on
+	private final long seed; // Seed the random number generator started from
+	private final LevelGenerator generator; // Lays out the walls, one chunk at a time
+	private ChunkStreamer streamer; // Builds the next chunks ahead on its own thread, or null
+	private LevelChunk chunk; // The chunk the wall pairs currently come from
+	private long chunkIndex = -1; // Position of that chunk in this game's sequence of chunks
+	private int chunkPair; // Next wall pair of that chunk to create
+	private final ArrayList<Polygon> nearby = new ArrayList<>(); // Reused result list for grid queries
+	private int previousInput; // Input of the previous tick, used to find key presses and releases
+	private double sweepX, sweepY; // How far the mouse moved relative to the fastest obstacles this tick
+	private long accumulator; // Real time not yet consumed by fixed ticks, in nanoseconds
+	private long tick; // Number of ticks simulated so far
+	private InputRecording recording; // Where every tick's input is recorded, or null
+	private HighScoreTable scoreTable; // Where finished games are submitted, or null
+	InputLatencyProbe latencyProbe; // Told about every jump, or null
+	private String player = "player"; // Name submitted with the scores
+
+	/**
+	 * Constructor for Simulation class with a seed taken from the clock.
+	 *
+	 * @param inWidth  The width of the playing field.
+	 * @param inHeight The height of the playing field.
+	 */
+	public Simulation(int inWidth, int inHeight) {
+		this(inWidth, inHeight, System.nanoTime());
+	}
+
+	/**
+	 * Constructor for Simulation class. Creates the player, the first cheese and
+	 * the first set of walls on a playing field of the given size. Two
+	 * simulations with the same seed spawn the same walls and cheeses.
+	 *
+	 * @param inWidth  The width of the playing field.
+	 * @param inHeight The height of the playing field.
+	 * @param inSeed   The seed for the random number generator.
+	 */
+	public Simulation(int inWidth, int inHeight, long inSeed) {
+		this(inWidth, inHeight, inSeed, new ProceduralLevelGenerator());
+	}
+
+	/**
+	 * Constructor for Simulation class with its own level generator. Replays
+	 * and keyframes only reproduce the game if they use the same generator.
+	 *
+	 * @param inWidth     The width of the playing field.
+	 * @param inHeight    The height of the playing field.
+	 * @param inSeed      The seed for the random number generator.
+	 * @param inGenerator Lays out the walls.
+	 */
+	public Simulation(int inWidth, int inHeight, long inSeed, LevelGenerator inGenerator) {
+		width = inWidth;
+		height = inHeight;
+		seed = inSeed;
+		random = new GameRandom(inSeed);
+		generator = inGenerator;
+
+		grid = new SpatialGrid(width, height, CELL_SIZE); // Walls and cheeses register here
+		obstacles = new ObstacleStore(CELL_SIZE); // And keep their transforms here
+		pool = new ObstaclePool(); // And come back here when they leave
+
+		// MOUSE: create the mouse
+		mouse = new Mouse(createMouseShape(), new Point(100, 300), 0, this); // Initialize Mouse object
+		// CHEESE: create a cheese
+		cheeses = new ArrayList<>(); // Initialize ArrayList for storing Cheese objects
+		makeCheese(); // Generate initial Cheese object
+		// WAllS: create walls
+		walls = new ArrayList<>(); // Initialize ArrayList for storing Wall objects
+		makeWall(); // Generate initial set of walls
+	}
+
+	/**
+	 * Creates the shape of the mouse.
+	 *
+	 * @return An array of points defining the shape of the mouse.
+	 */
+	public static Point[] createMouseShape() {
+		// create the coordinates for the dimensions of the mouse
+		Point[] mousePoints = { new Point(400, 500), // Bottom center
+				new Point(400, 480), // Top left
+				new Point(420, 490), // Top right
+				new Point(400, 500) }; // Back to bottom center to close the shape
+		return mousePoints;
+	}
+
+	/**
+	 * Runs as many fixed ticks as fit into the elapsed real time. Time that does
+	 * not fill a whole tick is kept for the next call. If the caller fell far
+	 * behind, the backlog beyond MAX_TICKS_PER_ADVANCE is dropped instead of
+	 * making the next call even slower.
+	 *
+	 * @param elapsedNanos The real time that passed since the last call.
+	 * @param input        The keys held down during this time (Input flags).
+	 * @return The number of ticks that were simulated.
+	 */
+	public int advance(long elapsedNanos, int input) {
+		accumulator += elapsedNanos;
+		int steps = 0;
+		while (accumulator >= TICK_NANOS && steps < MAX_TICKS_PER_ADVANCE) {
+			step(input);
+			accumulator -= TICK_NANOS;
+			steps++;
+		}
+		if (accumulator >= TICK_NANOS) {
+			accumulator %= TICK_NANOS; // Drop the backlog so a slow observer cannot stall the game
+		}
+		return steps;
+	}
+
+	/**
+	 * Runs as many fixed ticks as fit into the elapsed real time, asking a policy
+	 * for the input of each one. Otherwise works like advance(long, int).
+	 *
+	 * @param elapsedNanos The real time that passed since the last call.
+	 * @param policy       Decides the keys held down during each tick.
+	 * @return The number of ticks that were simulated.
+	 */
+	public int advance(long elapsedNanos, InputPolicy policy) {
+		accumulator += elapsedNanos;
+		int steps = 0;
+		while (accumulator >= TICK_NANOS && steps < MAX_TICKS_PER_ADVANCE) {
+			step(policy.nextInput(this));
+			accumulator -= TICK_NANOS;
+			steps++;
+		}
+		if (accumulator >= TICK_NANOS) {
+			accumulator %= TICK_NANOS; // Drop the backlog so a slow observer cannot stall the game
+		}
+		return steps;
+	}
+
+	/**
+	 * Advances the game by exactly one tick: moves the player, the cheese and the
+	 * walls, spawns new walls and checks for collisions.
+	 *
+	 * @param input The keys held down during this tick (Input flags).
+	 */
+	public void step(int input) {
+		if (recording != null) {
+			recording.record(tick + 1, input);
+		}
+		long tickStart = profiler.beginTick();
+		simulate(input);
+		profiler.endTick(tickStart);
+	}
+
+	/**
+	 * The body of step(), with each phase timed by the profiler.
+	 *
+	 * @param input The keys held down during this tick (Input flags).
+	 */
+	private void simulate(int input) {
+		tick++;
+
+		// Check if the game needs to be reset
+		boolean dead = needsReset; // The mouse died and the next round has not started yet
+		if (needsReset) {
+			resetGame(); // Reset the game
+		}
+		applyInput(input); // A space press here clears the reset and starts the next round
+		if (needsReset) {
+			return; // Wait for 'SPACE'
+		}
+		if (dead) {
+			nextChunk(null); // The new round's walls start from a new chunk, built once however long the wait was
+		}
+
+		// Counter only runs when the game is active
+		if (!pauseCounter) {
+			counter = mouse.getSpaceCounter(); // Update game counter with player score
+			int oldLevel = level.getCurrentLevel();
+			level.updateLevel(counter); // Update game level based on score
+			if (level.getCurrentLevel() != oldLevel) {
+				prefetchChunk(level.getCurrentLevel(), chunk); // The next chunk is built for the new level
+			}
+		}
+
+		// Move the player
+		long start = profiler.begin();
+		double fromY = mouse.getPositionY(); // The mouse's transform before it moves
+		mouse.move(); // Update player position based on input
+		profiler.end(TickProfiler.Phase.MOUSE_MOVE, start);
+		// Relative to the obstacles, which scroll left, the mouse moves right; the grid is searched as far as the fastest
+		sweepX = obstacles.getFastestScrollSpeed();
+		sweepY = mouse.getPositionY() - fromY;
+		// Move every wall and cheese left in one pass
+		start = profiler.begin();
+		obstacles.scroll();
+		// Remove the walls that left the screen, keeping the others in order
+		int kept = 0;
+		for (int i = 0; i < walls.size(); i++) {
+			Wall wall = walls.get(i);
+			if (wall.offScreen(width)) {
+				retire(wall);
+				pool.release(wall); // Recycle it for a later wall
+			} else {
+				walls.set(kept++, wall);
+			}
+		}
+		while (walls.size() > kept) {
+			walls.remove(walls.size() - 1);
+		}
+		profiler.end(TickProfiler.Phase.OBSTACLES, start);
+		// CHEESE: turn cheese
+		if (!cheeses.isEmpty()) { // Check if the cheeses list is not empty
+			Cheese currentCheese = cheeses.get(0); // Get current cheese object
+			currentCheese.turn(); // Rotate cheese object
+
+			start = profiler.begin();
+			boolean eaten = isNear(currentCheese) && hits(currentCheese); // Cheap tests first
+			profiler.end(TickProfiler.Phase.CHEESE_COLLISION, start);
+			// Remove consumed cheese & generate new one
+			if (currentCheese.offScreen() || eaten) {
+				start = profiler.begin();
+				cheeses.remove(0); // Remove consumed cheese from list
+				retire(currentCheese);
+				pool.release(currentCheese); // Recycle it for the next cheese
+				makeCheese(); // Generate new cheese object
+				profiler.end(TickProfiler.Phase.SPAWN, start);
+				if (eaten) {
+					mouse.setSpaceCounter(5);
+				}
+			}
+		}
+		// WALLS
+		wallTime++; // Increment wall creation timer
+
+		// Generate new wall every few seconds, as often as the chunk says
+		if (wallTime >= chunk.getInterval()) {
+			wallTime = 0;
+			start = profiler.begin();
+			makeWall(); // Generate new set of walls
+			profiler.end(TickProfiler.Phase.SPAWN, start);
+		}
+
+		// WALLS: check for collision with the walls in the cells around the mouse
+		start = profiler.begin();
+		grid.query(mouse, sweepX, sweepY, nearby);
+		for (int i = 0; i < nearby.size(); i++) {
+			Polygon wall = nearby.get(i);
+			if (wall instanceof Wall && hits(wall)) {
+				needsReset = true;
+				break; // Exit the loop if collision detected to avoid unnecessary checks
+			}
+		}
+		profiler.end(TickProfiler.Phase.WALL_COLLISION, start);
+		if (needsReset) {
+			prefetchChunk(0, null); // Died on a wall or an edge: the next round starts on level 0
+		}
+	}
+
+	/**
+	 * Tests the mouse against an obstacle along the whole path the mouse moved
+	 * relative to it this tick, so a fast fall cannot carry the mouse through a
+	 * wall or past a cheese between two ticks: first the bounding boxes around
+	 * that path, then, only if those overlap, the swept shapes. Both tests are
+	 * counted by the profiler.
+	 *
+	 * @param obstacle The wall or cheese to test.
+	 * @return true if the mouse touched the obstacle during the tick, false
+	 *         otherwise.
+	 */
+	private boolean hits(Polygon obstacle) {
+		double dx = obstacle.getScrollSpeed(); // Each obstacle moves at the speed of the chunk it came with
+		profiler.countBoundsTest();
+		if (!mouse.sweptBoundsOverlap(obstacle, dx, sweepY)) {
+			return false;
+		}
+		profiler.countCollisionTest();
+		return mouse.sweep(obstacle, dx, sweepY) >= 0;
+	}
+
+	/**
+	 * Checks whether a polygon is registered in one of the grid cells around the
+	 * path the mouse moved along this tick.
+	 *
+	 * @param polygon The polygon to look for.
+	 * @return true if the polygon is near the mouse, false otherwise.
+	 */
+	private boolean isNear(Polygon polygon) {
+		grid.query(mouse, sweepX, sweepY, nearby);
+		return nearby.contains(polygon);
+	}
+
+	/**
+	 * Hands this tick's input to the player and the cheese. The space bar is
+	 * edge-triggered, so only the ticks where it goes down or up are passed on.
+	 *
+	 * @param input The keys held down during this tick (Input flags).
+	 */
+	private void applyInput(int input) {
+		boolean space = Input.isDown(input, Input.SPACE);
+		boolean wasSpace = Input.isDown(previousInput, Input.SPACE);
+		if (space && !wasSpace) {
+			mouse.pressSpace();
+		} else if (!space && wasSpace) {
+			mouse.releaseSpace();
+		}
+		if (cheese != null) {
+			cheese.setRotateLeft(Input.isDown(input, Input.LEFT));
+			cheese.setRotateRight(Input.isDown(input, Input.RIGHT));
+		}
+		previousInput = input;
+	}
+
+	/**
+	 * Creating a cheese. Takes a Cheese object from the pool and places it at a
+	 * random position within the playing field.
+	 */
+	private void makeCheese() {
+		int x = width - 30; // Set x-coordinate to be within game window width
+		int y = random.nextInt(height - 50); // Set y-coordinate to be within game window height
+
+		cheese = pool.obtainCheese(x, y); // Get a new or recycled Cheese object
+		cheeses.add(cheese); // Add Cheese object to the list of cheeses
+		enter(cheese);
+	}
+
+	/**
+	 * Creating walls. Takes a new set of walls (top and bottom) from the pool and
+	 * places them where the current chunk says, moving on to the next chunk
+	 * once this one is used up.
+	 */
+	private void makeWall() {
+		if (chunk == null || chunkPair == chunk.getPairCount()) {
+			nextChunk(chunk);
+		}
+		// Make Top Wall
+		addWall(pool.obtainWall(width, chunk.getTopY(chunkPair), true)); // Get top wall object
+		// Make Bottom Wall
+		addWall(pool.obtainWall(width, chunk.getBottomY(chunkPair), false)); // Get bottom wall object
+		chunkPair++;
+	}
+
+	/**
+	 * Moves on to the next chunk, built for the current level. With a streamer
+	 * running, the chunk comes from its thread, ready or waited for, so this
+	 * thread never checks a chunk; without one it is built here. Either way it
+	 * is the same chunk, so streaming never changes the game.
+	 *
+	 * @param previous The chunk whose walls are still in play, or null at the
+	 *                 start of a round.
+	 */
+	private void nextChunk(LevelChunk previous) {
+		chunkIndex++;
+		int currentLevel = level.getCurrentLevel();
+		LevelChunk next = streamer == null ? null : streamer.take(currentLevel, chunkIndex, previous);
+		if (next == null) {
+			next = generator.generate(seed, currentLevel, chunkIndex, previous, width, height);
+			if (streamer != null) {
+				streamer.prefetch(currentLevel, chunkIndex + 1, next); // Start over after it once it runs
+			}
+		}
+		useChunk(next);
+	}
+
+	/**
+	 * Tells the streamer, if there is one, which chunk the game will ask for
+	 * next, so it is built by the time the current chunk is used up or the next
+	 * round starts.
+	 *
+	 * @param nextLevel The level the next chunk will be built for.
+	 * @param previous  The chunk the next one follows, or null if it starts a
+	 *                  round.
+	 */
+	private void prefetchChunk(int nextLevel, LevelChunk previous) {
+		if (streamer != null) {
+			streamer.prefetch(nextLevel, chunkIndex + 1, previous);
+		}
+	}
+
+	/**
+	 * Makes a chunk the source of the next wall pairs. Obstacles added from now
+	 * on scroll at its speed.
+	 *
+	 * @param next The chunk.
+	 */
+	private void useChunk(LevelChunk next) {
+		chunk = next;
+		chunkPair = 0;
+		obstacles.setScrollSpeed(next.getScrollSpeed()); // Its walls move at the speed the chunk was checked at
+	}
+
+	/**
+	 * Puts a wall into play: adds it to the list of walls, the collision grid and
+	 * the store.
+	 *
+	 * @param wall The wall entering the game.
+	 */
+	void addWall(Wall wall) {
+		walls.add(wall); // Add wall to list of walls
+		enter(wall);
+	}
+
+	/**
+	 * Registers a new obstacle for collision queries and lets the store scroll it.
+	 *
+	 * @param obstacle The wall or cheese entering the game.
+	 */
+	private void enter(Polygon obstacle) {
+		obstacle.snapshotTick = Long.MIN_VALUE; // A recycled obstacle must not be drawn sliding from its old place
+		grid.insert(obstacle); // Register it for collision queries
+		obstacles.add(obstacle); // Let the store scroll it
+	}
+
+	/**
+	 * Takes an obstacle out of the collision grid and the store.
+	 *
+	 * @param obstacle The wall or cheese leaving the game.
+	 */
+	private void retire(Polygon obstacle) {
+		grid.remove(obstacle);
+		obstacles.remove(obstacle);
+	}
+
+	/**
+	 * Resets the game by clearing all cheeses and walls, resetting the mouse
+	 * position, and resetting the game counter and other game parameters.
+	 */
+	private void resetGame() {
+		// Interface for resetting the game state
+		interface GameReset {
+			void reset(); // Method to reset the game state
+		}
+		// Anonymous class implementing GameReset interface
+		GameReset gameReset = new GameReset() {
+			/**
+			 * Resets the game state.
+			 */
+			@Override
+			public void reset() {
+				// Clear all cheeses
+				for (Cheese oldCheese : cheeses) {
+					pool.release(oldCheese);
+				}
+				cheeses.clear();
+				// Clear all walls
+				for (Wall oldWall : walls) {
+					pool.release(oldWall);
+				}
+				walls.clear();
+				// Empty the collision grid and the obstacle store
+				grid.clear();
+				obstacles.clear();
+				// Reset mouse position
+				mouse.resetMouse();
+				// Reset game counter
+				resetCounter();
+				makeCheese();
+			}
+		};
+		// Call the reset method of the anonymous class
+		gameReset.reset();
+	}
+
+	/**
+	 * Resets the game counter and updates the highest score and current level.
+	 * Called when the game is reset.
+	 */
+	public void resetCounter() {
+		if (counter > 0) {
+			leaderboard.submit(player, counter, level.getCurrentLevel()); // Rank the finished game
+		}
+		if (scoreTable != null && counter > 0) {
+			scoreTable.submit(player, counter, level.getCurrentLevel(), System.currentTimeMillis()); // Queued, never blocks
+		}
+		level.resetLevel(); // Reset game level to initial value
+		counter = 0; // Reset game counter to zero
+	}
+
+	/**
+	 * Pauses or resumes the game counter based on the given boolean flag.
+	 *
+	 * @param pause True to pause the game counter, false to resume.
+	 */
+	public void pauseCounter(boolean pause) {
+		pauseCounter = pause; // Set pause flag to the specified value
+	}
+
+	/**
+	 * Retrieves the current score.
+	 *
+	 * @return The current score.
+	 */
+	public int getCounter() {
+		return counter;
+	}
+
+	/**
+	 * Checks whether the game is waiting for the player to restart.
+	 *
+	 * @return true if the game needs to be reset, false otherwise.
+	 */
+	public boolean needsReset() {
+		return needsReset;
+	}
+
+	/**
+	 * Submits the score of every finished game from now on to a persistent high
+	 * score table.
+	 *
+	 * @param table    The table, or null to stop submitting.
+	 * @param inPlayer The name submitted with the scores.
+	 */
+	public void setHighScoreTable(HighScoreTable table, String inPlayer) {
+		scoreTable = table;
+		player = inPlayer;
+	}
+
+	/**
+	 * Tells a latency probe about every tick that makes the mouse jump.
+	 *
+	 * @param probe The probe, or null for none.
+	 */
+	public void setLatencyProbe(InputLatencyProbe probe) {
+		latencyProbe = probe;
+	}
+
+	/**
+	 * Starts recording the input of every tick from now on. Recording must start
+	 * before the first tick, because the recording only holds the seed and the
+	 * inputs and a replay starts from scratch.
+	 *
+	 * @return The recording, which keeps growing while the game is stepped.
+	 * @throws IllegalStateException If a tick was already simulated.
+	 */
+	public InputRecording startRecording() {
+		if (tick != 0) {
+			throw new IllegalStateException("recording must start before the first tick");
+		}
+		if (recording == null) {
+			recording = new InputRecording(seed, width, height);
+		}
+		return recording;
+	}
+
+	/**
+	 * Writes the whole state of the game for a replay keyframe: the counters and
+	 * flags, the chunk the walls come from, the random number generator, the
+	 * mouse, the cheese and every wall, with the speed each obstacle scrolls at.
+	 * The chunk is written whole, exit included, since it was built from every
+	 * chunk before it. Everything else, such as the collision grid, follows from
+	 * these.
+	 *
+	 * @param out Where to write the state.
+	 * @throws IOException If writing fails.
+	 */
+	void writeSnapshot(DataOutput out) throws IOException {
+		out.writeLong(tick);
+		out.writeInt(counter);
+		out.writeBoolean(pauseCounter);
+		out.writeInt(wallTime);
+		writeChunk(out);
+		out.writeInt(chunkPair);
+		out.writeBoolean(needsReset);
+		out.writeInt(leaderboard.getHighestScore());
+		out.writeInt(level.currentLevel);
+		out.writeByte(previousInput);
+		out.writeLong(random.getState());
+		mouse.writeState(out);
+		out.writeInt(cheeses.size());
+		for (Cheese oldCheese : cheeses) {
+			oldCheese.writeState(out);
+			out.writeDouble(oldCheese.getScrollSpeed());
+		}
+		out.writeInt(walls.size());
+		for (Wall wall : walls) {
+			out.writeDouble(wall.getPositionX());
+			out.writeDouble(wall.getPositionY());
+			out.writeDouble(wall.getScrollSpeed());
+		}
+	}
+
+	/**
+	 * Writes the chunk in use for a keyframe.
+	 *
+	 * @param out Where to write it.
+	 * @throws IOException If writing fails.
+	 */
+	private void writeChunk(DataOutput out) throws IOException {
+		out.writeLong(chunkIndex);
+		out.writeInt(chunk.getLevel());
+		out.writeDouble(chunk.getScrollSpeed());
+		out.writeInt(chunk.getInterval());
+		out.writeInt(chunk.getGap());
+		out.writeInt(chunk.getPairCount());
+		for (int pair = 0; pair < chunk.getPairCount(); pair++) {
+			out.writeInt(chunk.getTopY(pair));
+			out.writeInt(chunk.getBottomY(pair));
+		}
+		long[] exit = chunk.getExit();
+		out.writeInt(exit == null ? -1 : exit.length);
+		for (int i = 0; exit != null && i < exit.length; i++) {
+			out.writeLong(exit[i]);
+		}
+	}
+
+	/**
+	 * Reads the chunk written by writeChunk() and makes it the chunk in use.
+	 *
+	 * @param in The buffer to read from, positioned at the chunk.
+	 */
+	private void readChunk(ByteBuffer in) {
+		chunkIndex = in.getLong();
+		int chunkLevel = in.getInt();
+		double speed = in.getDouble();
+		int interval = in.getInt(), gap = in.getInt();
+		int[] topY = new int[in.getInt()];
+		int[] bottomY = new int[topY.length];
+		for (int pair = 0; pair < topY.length; pair++) {
+			topY[pair] = in.getInt();
+			bottomY[pair] = in.getInt();
+		}
+		int length = in.getInt();
+		long[] exit = length < 0 ? null : new long[length];
+		for (int i = 0; i < length; i++) {
+			exit[i] = in.getLong();
+		}
+		// Only the next chunk looks at which chunk this one followed, and it follows this one
+		useChunk(new LevelChunk(seed, chunkLevel, chunkIndex, speed, interval, gap, topY, bottomY, null, exit));
+	}
+
+	/**
+	 * Puts the game into the state written by writeSnapshot(). The walls and
+	 * cheeses in play go back to the pool first.
+	 *
+	 * @param in The buffer to read from, positioned at the state.
+	 */
+	void readSnapshot(ByteBuffer in) {
+		for (Cheese oldCheese : cheeses) {
+			pool.release(oldCheese);
+		}
+		cheeses.clear();
+		for (Wall oldWall : walls) {
+			pool.release(oldWall);
+		}
+		walls.clear();
+		grid.clear();
+		obstacles.clear();
+
+		tick = in.getLong();
+		counter = in.getInt();
+		pauseCounter = in.get() != 0;
+		wallTime = in.getInt();
+		readChunk(in);
+		chunkPair = in.getInt();
+		needsReset = in.get() != 0;
+		int highestScore = in.getInt();
+		if (highestScore > leaderboard.getHighestScore()) {
+			leaderboard.submit(player, highestScore, 0); // Only the best score survives a snapshot
+		}
+		level.currentLevel = in.getInt();
+		previousInput = in.get();
+		random.setState(in.getLong());
+		mouse.readState(in);
+		cheese = null;
+		for (int i = in.getInt(); i > 0; i--) {
+			cheese = pool.obtainCheese(0, 0);
+			cheese.readState(in);
+			cheeses.add(cheese);
+			enter(cheese);
+			obstacles.setScrollSpeed(cheese, in.getDouble());
+		}
+		for (int i = in.getInt(); i > 0; i--) {
+			double x = in.getDouble(), y = in.getDouble();
+			Wall wall = pool.obtainWall(x, y, true);
+			addWall(wall);
+			obstacles.setScrollSpeed(wall, in.getDouble());
+		}
+		accumulator = 0;
+	}
+
+	/**
+	 * Checks whether the game is stopped: either it has not started yet or the
+	 * mouse died. In both cases the next 'SPACE' press starts a new round.
+	 *
+	 * @return true if the game waits for 'SPACE', false while it is running.
+	 */
+	public boolean isPaused() {
+		return pauseCounter || needsReset;
+	}
+
+	/**
+	 * Lets a streamer build the chunks of this game ahead of time. It must have
+	 * been created for this game's seed, field size and level generator. The
+	 * game plays the same with or without one. The streamer starts with the
+	 * chunk after the one in use.
+	 *
+	 * @param inStreamer The streamer, or null to build every chunk inline.
+	 */
+	public void setChunkStreamer(ChunkStreamer inStreamer) {
+		streamer = inStreamer;
+		prefetchChunk(chunk.getLevel(), needsReset ? null : chunk);
+	}
+
+	/**
+	 * Retrieves the generator that lays out this game's walls.
+	 *
+	 * @return The level generator.
+	 */
+	public LevelGenerator getLevelGenerator() {
+		return generator;
+	}
+
+	/**
+	 * Retrieves how fast the walls and cheeses scroll now.
+	 *
+	 * @return Pixels per tick.
+	 */
+	public double getScrollSpeed() {
+		return obstacles.getScrollSpeed();
+	}
+
+	/**
+	 * Retrieves the seed the random number generator started from.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the number of ticks simulated so far.
+	 *
+	 * @return The number of ticks simulated so far.
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Retrieves how far the simulation is into the next tick, which an observer
+	 * can use to interpolate between two ticks.
+	 *
+	 * @return A value from 0 (just ticked) up to, but not including, 1.
+	 */
+	public double getAlpha() {
+		return (double) accumulator / TICK_NANOS;
+	}
+
+	/**
+	 * Retrieves the profiler that times this simulation's ticks.
+	 *
+	 * @return The profiler.
+	 */
+	public TickProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Retrieves the player.
+	 *
+	 * @return The mouse.
+	 */
+	public Mouse getMouse() {
+		return mouse;
+	}
+
+	/**
+	 * Retrieves the cheeses currently in play.
+	 *
+	 * @return The list of cheeses.
+	 */
+	public ArrayList<Cheese> getCheeses() {
+		return cheeses;
+	}
+
+	/**
+	 * Retrieves the walls currently in play.
+	 *
+	 * @return The list of walls.
+	 */
+	public ArrayList<Wall> getWalls() {
+		return walls;
+	}
+
+	/**
+	 * Retrieves the highest score on this session's leaderboard.
+	 *
+	 * @return The highest score.
+	 */
+	public int getHighestScore() {
+		return leaderboard.getHighestScore();
+	}
+
+	/**
+	 * Retrieves the leaderboard the finished games of this session go to.
+	 *
+	 * @return The leaderboard.
+	 */
+	public Leaderboard getLeaderboard() {
+		return leaderboard;
+	}
+
+	/**
+	 * Sends the finished games of this session to a leaderboard, which many
+	 * sessions may share. The highest score then is the best of all of them.
+	 *
+	 * @param inLeaderboard The leaderboard.
+	 */
+	public void setLeaderboard(Leaderboard inLeaderboard) {
+		leaderboard = inLeaderboard;
+	}
+
+	/**
+	 * Retrieves the current level of this session.
+	 *
+	 * @return The current level.
+	 */
+	public int getCurrentLevel() {
+		return level.getCurrentLevel();
+	}
+
+	/**
+	 * Inner class to keep track of the current level. The level starts at 0 and
+	 * goes back to 0 whenever the game is reset.
+	 */
+	static class Level {
+		private int currentLevel; // Variable to store the current level
+
+		/**
+		 * Updates the current level based on the current score.
+		 *
+		 * @param currentScore The current score to determine the level.
+		 */
+		public void updateLevel(int currentScore) {
+			// Check if the score reaches a multiple of ten and a new level is reached
+			if (currentScore % 10 == 0 && currentScore != 0 && currentScore / 10 != currentLevel) {
+				currentLevel += 1; // Increment the current level
+			}
+		}
+
+		/**
+		 * Retrieves the current level.
+		 *
+		 * @return The current level.
+		 */
+		public int getCurrentLevel() {
+			return currentLevel; // Return the current level
+		}
+
+		/**
+		 * Resets the current level to 0.
+		 */
+		public void resetLevel() {
+			currentLevel = 0; // Reset the current level to 0
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package game;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The SimulationLoop class runs a Simulation on its own thread at real time,
+ * one fixed tick every Simulation.TICK_NANOS scaled by a playback rate. After
+ * every tick it captures a FrameSnapshot into a SnapshotBuffer, so the render
+ * thread can draw at whatever rate the screen allows without ever touching
+ * the simulation or waiting for it. If the thread falls far behind, the
+ * backlog beyond a catch-up limit is dropped, as Simulation.advance() does.
+ */
+public class SimulationLoop implements Runnable {
+	private final Simulation simulation; // The game being run
+	private final InputPolicy policy; // Decides the keys of each tick
+	private final long tickNanos; // Real time between two ticks
+	private final long lastTick; // The tick to stop at
+	private final int maxTicks; // Catch-up limit per wake-up
+	private final SnapshotBuffer buffer = new SnapshotBuffer(); // Where every tick is published
+	private volatile boolean running; // Cleared to stop the thread
+	private Thread thread; // The simulation thread, once started
+
+	/**
+	 * Constructs a loop that runs a simulation until it is stopped.
+	 *
+	 * @param inSimulation The simulation; from start() on only the loop's thread
+	 *                     may touch it.
+	 * @param inPolicy     Decides the keys of each tick.
+	 */
+	public SimulationLoop(Simulation inSimulation, InputPolicy inPolicy) {
+		this(inSimulation, inPolicy, 1, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs a loop that runs a simulation at a playback rate up to a given
+	 * tick, for showing recorded games.
+	 *
+	 * @param inSimulation   The simulation; from start() on only the loop's
+	 *                       thread may touch it.
+	 * @param inPolicy       Decides the keys of each tick.
+	 * @param inPlaybackRate How much faster than real time to run; 0.5 is half
+	 *                       speed, 4 is four times as fast.
+	 * @param inLastTick     The tick after which the game stands still.
+	 */
+	public SimulationLoop(Simulation inSimulation, InputPolicy inPolicy, double inPlaybackRate, long inLastTick) {
+		if (!(inPlaybackRate > 0)) {
+			throw new IllegalArgumentException("playback rate must be positive: " + inPlaybackRate);
+		}
+		simulation = inSimulation;
+		policy = inPolicy;
+		tickNanos = Math.max(1, (long) (Simulation.TICK_NANOS / inPlaybackRate));
+		lastTick = inLastTick;
+		maxTicks = (int) Math.max(Simulation.MAX_TICKS_PER_ADVANCE,
+				Math.ceil(Simulation.MAX_TICKS_PER_ADVANCE * inPlaybackRate));
+	}
+
+	/**
+	 * Retrieves the buffer the ticks are published to.
+	 *
+	 * @return The snapshot buffer.
+	 */
+	public SnapshotBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Publishes the current state and starts the simulation thread. Does
+	 * nothing if it is already running.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		publish(System.nanoTime());
+		running = true;
+		thread = new Thread(this, "simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the simulation thread after its current tick and waits for it.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public synchronized void stop() throws InterruptedException {
+		running = false;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			thread.join();
+		}
+	}
+
+	/**
+	 * The simulation thread: runs every tick that is due, publishing each one,
+	 * then sleeps until the next is due.
+	 */
+	@Override
+	public void run() {
+		long next = System.nanoTime() + tickNanos; // When the next tick is due
+		while (running) {
+			long now = System.nanoTime();
+			int steps = 0;
+			while (now - next >= 0 && steps < maxTicks && simulation.getTick() < lastTick) {
+				simulation.step(policy.nextInput(simulation));
+				publish(next);
+				next += tickNanos;
+				steps++;
+			}
+			if (now - next >= tickNanos || simulation.getTick() >= lastTick) {
+				next = now + tickNanos; // Drop the backlog, or idle once the game is over
+			}
+			LockSupport.parkNanos(next - System.nanoTime());
+		}
+	}
+
+	/**
+	 * Captures the simulation into the back buffer and publishes it.
+	 *
+	 * @param dueTime When the tick just run was due.
+	 */
+	private void publish(long dueTime) {
+		buffer.getBack().capture(simulation, dueTime, tickNanos);
+		buffer.publish();
+	}
+}
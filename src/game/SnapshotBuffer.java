@@ -0,0 +1,56 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SnapshotBuffer class hands FrameSnapshots from the simulation thread to
+ * the render thread through three reused buffers. The writer always owns one,
+ * the reader owns another, and the third sits in the middle holding the
+ * newest finished snapshot. Publishing and taking are each a single atomic
+ * swap with the middle buffer, so neither thread ever waits for the other: a
+ * fast writer simply replaces snapshots the reader never looked at, and a
+ * fast reader keeps the one it has until a newer one arrives.
+ *
+ * The reader holds only one buffer, so every snapshot carries the transforms
+ * of the tick before it as well; that is enough to interpolate between the
+ * last two ticks.
+ */
+public class SnapshotBuffer {
+	private static final int INDEX = 3; // Bits of the middle word that name a buffer
+	private static final int FRESH = 4; // Set in the middle word while it holds an unread snapshot
+
+	private final FrameSnapshot[] snapshots = { new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot() }; // The three buffers
+	private final AtomicInteger middle = new AtomicInteger(1); // The middle buffer, plus FRESH
+	private int back = 0; // The buffer the writer fills; writer thread only
+	private int front = 2; // The buffer the reader holds; reader thread only
+
+	/**
+	 * Retrieves the snapshot the writer should fill next. Writer thread only.
+	 *
+	 * @return The back buffer.
+	 */
+	public FrameSnapshot getBack() {
+		return snapshots[back];
+	}
+
+	/**
+	 * Publishes the back buffer as the newest snapshot and takes the old middle
+	 * buffer as the next back buffer. Writer thread only.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Retrieves the newest published snapshot. If nothing was published since
+	 * the last call, the same snapshot comes back again. Reader thread only.
+	 *
+	 * @return The front buffer, which stays unchanged until the next call.
+	 */
+	public FrameSnapshot latest() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX;
+		}
+		return snapshots[front];
+	}
+}
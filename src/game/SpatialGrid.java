@@ -0,0 +1,227 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SpatialGrid class splits the screen into square cells and remembers which
+ * polygons overlap which cells. Collision checks then only look at polygons in
+ * the cells around the one they are testing instead of every polygon in play.
+ * Polygons that leave the screen are kept in the border cells.
+ */
+public class SpatialGrid {
+	private final double cellSize; // Width and height of one cell
+	private final int columns, rows; // Number of cells across and down
+	private final ArrayList<Polygon>[] cells; // The polygons overlapping each cell
+	private int queryStamp; // Marks polygons already reported by the current query
+	private int size; // Number of polygons registered
+
+	/**
+	 * Constructs an empty grid covering a screen of the given size.
+	 *
+	 * @param inWidth    The width of the screen.
+	 * @param inHeight   The height of the screen.
+	 * @param inCellSize The width and height of one cell.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" }) // Java cannot create an array of ArrayList<Polygon>
+	public SpatialGrid(int inWidth, int inHeight, double inCellSize) {
+		cellSize = inCellSize;
+		columns = Math.max(1, (int) Math.ceil(inWidth / inCellSize));
+		rows = Math.max(1, (int) Math.ceil(inHeight / inCellSize));
+		cells = new ArrayList[columns * rows];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Registers a polygon in every cell its bounding box overlaps. From now on the
+	 * polygon keeps its cells up to date by itself whenever it moves or rotates.
+	 *
+	 * @param polygon The polygon to register.
+	 */
+	public void insert(Polygon polygon) {
+		if (polygon.grid != null) {
+			polygon.grid.remove(polygon); // A polygon lives in one grid at a time
+		}
+		polygon.grid = this;
+		polygon.gridMinColumn = column(polygon.getMinX());
+		polygon.gridMaxColumn = column(polygon.getMaxX());
+		polygon.gridMinRow = row(polygon.getMinY());
+		polygon.gridMaxRow = row(polygon.getMaxY());
+		addToCells(polygon);
+		size++;
+		if (polygon.store != null) {
+			polygon.store.refresh(polygon); // Scrolling must now keep the cells current
+		}
+	}
+
+	/**
+	 * Removes a polygon from the grid.
+	 *
+	 * @param polygon The polygon to remove.
+	 */
+	public void remove(Polygon polygon) {
+		if (polygon.grid != this) {
+			return; // Not registered here
+		}
+		removeFromCells(polygon);
+		polygon.grid = null;
+		size--;
+	}
+
+	/**
+	 * Moves a polygon to the cells its bounding box overlaps now. Nothing happens
+	 * unless it crossed into a different cell, which for a wall scrolling left is
+	 * only once every few dozen ticks.
+	 *
+	 * @param polygon The polygon that moved.
+	 */
+	void update(Polygon polygon) {
+		int minColumn = column(polygon.getMinX());
+		int maxColumn = column(polygon.getMaxX());
+		int minRow = row(polygon.getMinY());
+		int maxRow = row(polygon.getMaxY());
+		if (minColumn == polygon.gridMinColumn && maxColumn == polygon.gridMaxColumn
+				&& minRow == polygon.gridMinRow && maxRow == polygon.gridMaxRow) {
+			return; // Still in the same cells
+		}
+		removeFromCells(polygon);
+		polygon.gridMinColumn = minColumn;
+		polygon.gridMaxColumn = maxColumn;
+		polygon.gridMinRow = minRow;
+		polygon.gridMaxRow = maxRow;
+		addToCells(polygon);
+	}
+
+	/**
+	 * Finds the polygons registered in the cells around a probe polygon. Every
+	 * polygon is reported once, even if it spans several of those cells. The
+	 * probe itself is never reported.
+	 *
+	 * @param probe  The polygon to look around.
+	 * @param nearby The list to fill; it is cleared first so it can be reused.
+	 * @return The number of polygons found.
+	 */
+	public int query(Polygon probe, List<Polygon> nearby) {
+		return query(probe, 0, 0, nearby);
+	}
+
+	/**
+	 * Finds the polygons registered in the cells around the whole path a probe
+	 * polygon moved along during the last step, for swept collision tests.
+	 * Otherwise works like query(Polygon, List).
+	 *
+	 * @param probe  The polygon to look around, where the step ended.
+	 * @param dx     How far the probe moved along x during the step.
+	 * @param dy     How far the probe moved along y during the step.
+	 * @param nearby The list to fill; it is cleared first so it can be reused.
+	 * @return The number of polygons found.
+	 */
+	public int query(Polygon probe, double dx, double dy, List<Polygon> nearby) {
+		nearby.clear();
+		queryStamp++;
+		probe.gridStamp = queryStamp; // Never report the probe
+		int minColumn = column(Math.min(probe.getMinX(), probe.getMinX() - dx));
+		int maxColumn = column(Math.max(probe.getMaxX(), probe.getMaxX() - dx));
+		int minRow = row(Math.min(probe.getMinY(), probe.getMinY() - dy));
+		int maxRow = row(Math.max(probe.getMaxY(), probe.getMaxY() - dy));
+		for (int r = minRow; r <= maxRow; r++) {
+			for (int c = minColumn; c <= maxColumn; c++) {
+				ArrayList<Polygon> cell = cells[r * columns + c];
+				for (int i = 0; i < cell.size(); i++) {
+					Polygon polygon = cell.get(i);
+					if (polygon.gridStamp != queryStamp) {
+						polygon.gridStamp = queryStamp;
+						nearby.add(polygon);
+					}
+				}
+			}
+		}
+		return nearby.size();
+	}
+
+	/**
+	 * Removes every polygon from the grid.
+	 */
+	public void clear() {
+		for (ArrayList<Polygon> cell : cells) {
+			for (int i = 0; i < cell.size(); i++) {
+				cell.get(i).grid = null;
+			}
+			cell.clear();
+		}
+		size = 0;
+	}
+
+	/**
+	 * Retrieves the number of polygons registered in the grid.
+	 *
+	 * @return The number of polygons registered.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds a polygon to the cells recorded in its bookkeeping fields.
+	 *
+	 * @param polygon The polygon to add.
+	 */
+	private void addToCells(Polygon polygon) {
+		for (int r = polygon.gridMinRow; r <= polygon.gridMaxRow; r++) {
+			for (int c = polygon.gridMinColumn; c <= polygon.gridMaxColumn; c++) {
+				cells[r * columns + c].add(polygon);
+			}
+		}
+	}
+
+	/**
+	 * Removes a polygon from the cells recorded in its bookkeeping fields. The
+	 * last polygon of a cell takes the removed one's place, so nothing shifts.
+	 *
+	 * @param polygon The polygon to remove.
+	 */
+	private void removeFromCells(Polygon polygon) {
+		for (int r = polygon.gridMinRow; r <= polygon.gridMaxRow; r++) {
+			for (int c = polygon.gridMinColumn; c <= polygon.gridMaxColumn; c++) {
+				ArrayList<Polygon> cell = cells[r * columns + c];
+				int i = cell.indexOf(polygon);
+				int last = cell.size() - 1;
+				cell.set(i, cell.get(last));
+				cell.remove(last);
+			}
+		}
+	}
+
+	/**
+	 * Finds the column of an x coordinate, clamped to the grid.
+	 *
+	 * @param x The x coordinate.
+	 * @return The column index.
+	 */
+	private int column(double x) {
+		return clamp((int) Math.floor(x / cellSize), columns);
+	}
+
+	/**
+	 * Finds the row of a y coordinate, clamped to the grid.
+	 *
+	 * @param y The y coordinate.
+	 * @return The row index.
+	 */
+	private int row(double y) {
+		return clamp((int) Math.floor(y / cellSize), rows);
+	}
+
+	/**
+	 * Clamps a cell index into the range [0, count).
+	 *
+	 * @param index The index to clamp.
+	 * @param count The number of cells along the axis.
+	 * @return The clamped index.
+	 */
+	private static int clamp(int index, int count) {
+		return index < 0 ? 0 : (index >= count ? count - 1 : index);
+	}
+}
@@ -0,0 +1,234 @@
+package game;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+
+/**
+ * The TickProfiler class measures where the time of a tick goes. Each phase of
+ * the game loop is timed with System.nanoTime() into its own LatencyHistogram,
+ * and the profiler counts bounding box tests, exact collision tests and the
+ * bytes allocated while simulating. It is off by default; while off, every call
+ * returns at once without reading the clock.
+ */
+public class TickProfiler {
+	/**
+	 * The phases of the game loop that are timed separately.
+	 */
+	public enum Phase {
+		TICK("tick"), // One whole Simulation.step()
+		MOUSE_MOVE("mouse.move"), // Moving the player
+		OBSTACLES("obstacle move/cull"), // Scrolling and culling walls and cheese
+		SPAWN("spawn"), // Creating new walls and cheese
+		CHEESE_COLLISION("cheese collision"), // Testing the mouse against the cheese
+		WALL_COLLISION("wall collision"), // Testing the mouse against the walls
+		PAINT("paint"), // Drawing a frame into the back buffer
+		BLIT("buffer blit"); // Showing the back buffer on screen
+
+		private final String label; // Name used in reports
+
+		/**
+		 * Constructs a phase with its report name.
+		 *
+		 * @param inLabel The name used in reports.
+		 */
+		Phase(String inLabel) {
+			label = inLabel;
+		}
+
+		/**
+		 * Retrieves the name used in reports.
+		 *
+		 * @return The report name.
+		 */
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final EnumMap<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class); // One per phase
+	private volatile boolean enabled; // Whether anything is measured
+	private long boundsTests; // Bounding box tests run
+	private long collisionTests; // Exact collision tests run
+	private long allocatedBytes; // Bytes allocated by the simulating thread during ticks
+	private long tickStartBytes; // Allocated bytes of the simulating thread when the tick began
+
+	/**
+	 * Constructs a profiler that is switched off.
+	 */
+	public TickProfiler() {
+		for (Phase phase : Phase.values()) {
+			histograms.put(phase, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * Switches measuring on or off. Can be called from any thread.
+	 *
+	 * @param on True to start measuring, false to stop.
+	 */
+	public void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * Checks whether the profiler is measuring.
+	 *
+	 * @return true if measuring, false otherwise.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts timing a phase.
+	 *
+	 * @return The start time to pass to end(), or 0 while switched off.
+	 */
+	public long begin() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Finishes timing a phase started with begin().
+	 *
+	 * @param phase The phase that was timed.
+	 * @param start The value begin() returned.
+	 */
+	public void end(Phase phase, long start) {
+		if (start != 0 && enabled) {
+			histograms.get(phase).record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Starts timing a whole tick, including the bytes it allocates.
+	 *
+	 * @return The start time to pass to endTick(), or 0 while switched off.
+	 */
+	public long beginTick() {
+		if (!enabled) {
+			return 0;
+		}
+		tickStartBytes = threadAllocatedBytes();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Finishes timing a tick started with beginTick().
+	 *
+	 * @param start The value beginTick() returned.
+	 */
+	public void endTick(long start) {
+		if (start != 0 && enabled) {
+			histograms.get(Phase.TICK).record(System.nanoTime() - start);
+			allocatedBytes += Math.max(0, threadAllocatedBytes() - tickStartBytes);
+		}
+	}
+
+	/**
+	 * Counts one bounding box test.
+	 */
+	public void countBoundsTest() {
+		if (enabled) {
+			boundsTests++;
+		}
+	}
+
+	/**
+	 * Counts one exact collision test.
+	 */
+	public void countCollisionTest() {
+		if (enabled) {
+			collisionTests++;
+		}
+	}
+
+	/**
+	 * Retrieves the latency histogram of a phase.
+	 *
+	 * @param phase The phase.
+	 * @return Its histogram.
+	 */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return histograms.get(phase);
+	}
+
+	/**
+	 * Retrieves the number of bounding box tests counted.
+	 *
+	 * @return The number of bounding box tests.
+	 */
+	public long getBoundsTests() {
+		return boundsTests;
+	}
+
+	/**
+	 * Retrieves the number of exact collision tests counted.
+	 *
+	 * @return The number of exact collision tests.
+	 */
+	public long getCollisionTests() {
+		return collisionTests;
+	}
+
+	/**
+	 * Retrieves the bytes the simulating thread allocated during measured ticks.
+	 *
+	 * @return The bytes allocated, or 0 if the JVM cannot tell.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Forgets everything measured so far.
+	 */
+	public void reset() {
+		for (LatencyHistogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+		boundsTests = 0;
+		collisionTests = 0;
+		allocatedBytes = 0;
+	}
+
+	/**
+	 * Writes a report of every phase and counter.
+	 *
+	 * @param out Where to write the report.
+	 */
+	public void report(Writer out) {
+		PrintWriter writer = new PrintWriter(out);
+		writer.printf("%-20s %10s %10s %10s %10s %10s %10s%n", "phase (us)", "count", "mean", "p50", "p99",
+				"p99.9", "max");
+		for (Phase phase : Phase.values()) {
+			LatencyHistogram h = histograms.get(phase);
+			writer.printf("%-20s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", phase.getLabel(), h.getCount(),
+					h.getMean() / 1e3, h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3,
+					h.getValueAtPercentile(99.9) / 1e3, h.getMax() / 1e3);
+		}
+		long ticks = histograms.get(Phase.TICK).getCount();
+		writer.printf("bounds tests         %d%n", boundsTests);
+		writer.printf("collision tests      %d%n", collisionTests);
+		writer.printf("allocated bytes      %d (%.1f per tick)%n", allocatedBytes,
+				ticks == 0 ? 0.0 : (double) allocatedBytes / ticks);
+		writer.printf("polygon allocations  %d%n", Polygon.getAllocationCount());
+		writer.flush();
+	}
+
+	/**
+	 * Reads how many bytes the current thread has allocated so far.
+	 *
+	 * @return The bytes allocated, or 0 if the JVM cannot tell.
+	 */
+	private static long threadAllocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+		}
+		return 0;
+	}
+}
@@ -8,8 +8,6 @@ import java.awt.Graphics;
 public class Wall extends Polygon implements GameElements{
 	private static final int WALL_WIDTH = 30; // Width of the wall
 	public static final int WALL_HEIGHT = 300; // Height of the wall
-	private double x; // current x
-	private double y; // current y
 	/**
 	 * Constructs a Wall object with the specified position and height.
 	 *
@@ -19,9 +17,6 @@ public class Wall extends Polygon implements GameElements{
 	 */
 	public Wall(Point inPosition, boolean isTop) {
 		super(createShape(inPosition, isTop), inPosition, 0); // Call the superclass constructor
-		// Initialize x and y coordinates
-		this.x = inPosition.getX();
-		this.y = inPosition.getY();
 	}
 	/**
 	 * Creates the shape of the wall based on its position and whether it's a top or
@@ -51,6 +46,18 @@ public class Wall extends Polygon implements GameElements{
 		}
 		return shape; // Return the shape of the wall
 	}
+	/**
+	 * Puts a recycled wall back into play at a new position. Top and bottom walls
+	 * share the same shape, so only the position changes.
+	 *
+	 * @param x     The x coordinate of the wall.
+	 * @param y     The y coordinate of the wall.
+	 * @param isTop Indicates whether the wall is at the top or bottom of the
+	 *              screen.
+	 */
+	public void reinitialize(double x, double y, boolean isTop) {
+		setTransform(x, y, 0);
+	}
 	/**
 	 * Paints the wall object onto the specified graphics context.
 	 *
@@ -58,23 +65,14 @@ public class Wall extends Polygon implements GameElements{
 	 */
 	public void paint(Graphics brush) {
 		brush.setColor(Color.cyan); // Set the color of the wall to gray
-		Point[] points = getPoints(); // Get the points of the wall object
-		int[] xPoints = new int[points.length];
-		int[] yPoints = new int[points.length];
-		// Extract x and y coordinates from the points array
-		for (int i = 0; i < points.length; i++) {
-			xPoints[i] = (int) points[i].getX();
-			yPoints[i] = (int) points[i].getY();
-		}
-		// Use fillPolygon method to create the shape of the wall
-		brush.fillPolygon(xPoints, yPoints, points.length);
+		// Use fillPolygon method to create the shape of the wall from the reused pixel arrays
+		brush.fillPolygon(getScreenX(), getScreenY(), getVertexCount());
 	}
 	/**
 	 * Moves the wall object continuously to the left.
 	 */
 	public void move() {
-		x -= 0.9; // Move the x-position to the left
-		position.setX(x); // Update x coordinate in the position object
+		setPositionX(getPositionX() - getScrollSpeed()); // Move the x-position to the left at the speed of its chunk
 	}
 	/**
 	 * Checks if the wall object is off the screen.
@@ -83,6 +81,6 @@ public class Wall extends Polygon implements GameElements{
 	 * @return true if the wall is off the screen, false otherwise.
 	 */
 	public boolean offScreen(int screenWidth) {
-		return x + WALL_WIDTH < 0; // Check if the right edge of the wall is off the screen
+		return getPositionX() + WALL_WIDTH < 0; // Check if the right edge of the wall is off the screen
 	}
 }
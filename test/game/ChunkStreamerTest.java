@@ -0,0 +1,87 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a chunk the ChunkStreamer does not have yet is built on its own
+ * thread, never on the thread that asks for it.
+ */
+class ChunkStreamerTest {
+	private static final int WIDTH = 800, HEIGHT = 600; // Size of the playing field
+	private static final long SLOW_NANOS = 5_000_000L; // Extra time each chunk takes, so the streamer falls behind
+
+	/**
+	 * The RecordingGenerator class builds checked chunks slowly and remembers
+	 * every thread that built one.
+	 */
+	private static final class RecordingGenerator implements LevelGenerator {
+		private final ProceduralLevelGenerator checked = new ProceduralLevelGenerator(); // Builds the chunks
+		private final Set<Thread> builders = ConcurrentHashMap.newKeySet(); // Threads that built a chunk
+
+		/**
+		 * Builds a checked chunk after a delay and records the calling thread.
+		 *
+		 * @param seed     The game's seed.
+		 * @param level    The level.
+		 * @param index    The chunk index.
+		 * @param previous The chunk it follows, or null.
+		 * @param width    Width of the playing field.
+		 * @param height   Height of the playing field.
+		 * @return The chunk.
+		 */
+		@Override
+		public LevelChunk generate(long seed, int level, long index, LevelChunk previous, int width, int height) {
+			builders.add(Thread.currentThread());
+			LockSupport.parkNanos(SLOW_NANOS);
+			return checked.generate(seed, level, index, previous, width, height);
+		}
+	}
+
+	/**
+	 * Asking for a chunk far from the one the streamer is building waits for
+	 * it, counts it as missed, and builds it on the streamer's thread.
+	 */
+	@Test
+	void missWaitsForStreamerThread() {
+		RecordingGenerator generator = new RecordingGenerator();
+		try (ChunkStreamer streamer = new ChunkStreamer(generator, 1, WIDTH, HEIGHT, 4)) {
+			streamer.start();
+			LevelChunk chunk = streamer.take(3, 50, null);
+			assertNotNull(chunk);
+			assertTrue(chunk.matches(1, 3, 50));
+			assertEquals(1, streamer.getMissed());
+			assertFalse(generator.builders.contains(Thread.currentThread()));
+		}
+	}
+
+	/**
+	 * A hover bot plays round after round while the streamer falls behind, so
+	 * the game keeps asking for chunks that are not ready; none of them is
+	 * built on the game's thread.
+	 */
+	@Test
+	void simulationNeverBuildsChunksOnItsThreadOnAMiss() {
+		RecordingGenerator generator = new RecordingGenerator();
+		Simulation simulation = new Simulation(WIDTH, HEIGHT, 1, generator); // Builds the first chunk itself
+		generator.builders.clear();
+		try (ChunkStreamer streamer = new ChunkStreamer(generator, 1, WIDTH, HEIGHT, 4)) {
+			streamer.start();
+			simulation.setChunkStreamer(streamer);
+			HoverBot bot = new HoverBot(330);
+			for (int i = 0; i < 20_000; i++) {
+				simulation.step(bot.nextInput(simulation));
+			}
+			assertTrue(streamer.getMissed() > 0);
+			assertFalse(generator.builders.contains(Thread.currentThread()));
+		}
+	}
+}
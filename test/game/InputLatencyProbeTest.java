@@ -0,0 +1,54 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests when InputLatencyProbe counts a jump as shown.
+ */
+class InputLatencyProbeTest {
+	/**
+	 * Plays a round up to a followed jump and captures the jump tick.
+	 *
+	 * @param probe The probe to follow the jump with.
+	 * @return The snapshot of the jump tick.
+	 */
+	private static FrameSnapshot jumpTick(InputLatencyProbe probe) {
+		Simulation simulation = new Simulation(800, 600, 1);
+		probe.setEnabled(true);
+		simulation.setLatencyProbe(probe);
+		FrameSnapshot snapshot = new FrameSnapshot();
+		for (int i = 0; i < 6; i++) {
+			simulation.step(i == 0 ? Input.SPACE : Input.NONE); // The first press starts the round
+			snapshot.capture(simulation, System.nanoTime(), Simulation.TICK_NANOS); // As the game does every tick
+		}
+		probe.pressed(System.nanoTime());
+		simulation.step(Input.SPACE);
+		snapshot.capture(simulation, System.nanoTime(), Simulation.TICK_NANOS);
+		return snapshot;
+	}
+
+	/**
+	 * A frame drawn from the jump tick at alpha 0 still shows the mouse where it
+	 * jumped from, so it is not timed; the next frame, further along, is.
+	 */
+	@Test
+	void jumpTickAtAlphaZeroIsNotShown() {
+		InputLatencyProbe probe = new InputLatencyProbe();
+		FrameSnapshot snapshot = jumpTick(probe);
+		assertEquals(snapshot.getJumpY(), snapshot.getY(0, 0));
+
+		probe.painting(snapshot, 0);
+		probe.shown();
+		assertEquals(0, probe.getTickToPhoton().getCount());
+
+		probe.painting(snapshot, 0.5);
+		probe.shown();
+		assertEquals(1, probe.getTickToPhoton().getCount());
+
+		probe.painting(snapshot, 1);
+		probe.shown();
+		assertEquals(1, probe.getTickToPhoton().getCount()); // Each jump is timed once
+	}
+}
@@ -0,0 +1,51 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that ReachabilityOracle checks a chunk from where the previous chunk
+ * leaves the mouse.
+ */
+class ReachabilityOracleTest {
+	private static final int WIDTH = 800, HEIGHT = 600; // Size of the playing field
+
+	/**
+	 * Builds a level 0 chunk whose openings are all at the same height.
+	 *
+	 * @param index    The chunk index.
+	 * @param interval Ticks between two wall pairs.
+	 * @param top      Where each top wall is.
+	 * @param bottom   Where each bottom wall is.
+	 * @param entry    The previous chunk's exit, or null.
+	 * @param exit     The chunk's exit, or null.
+	 * @return The chunk.
+	 */
+	private static LevelChunk chunk(long index, int interval, int top, int bottom, long[] entry, long[] exit) {
+		int[] topY = { top, top, top, top };
+		int[] bottomY = { bottom, bottom, bottom, bottom };
+		return new LevelChunk(1, 0, index, Simulation.SCROLL_SPEED, interval, bottom - top, topY, bottomY, entry, exit);
+	}
+
+	/**
+	 * A chunk with its openings low down is easy from rest. Right after a chunk
+	 * whose openings are high up and close together, its first pair arrives
+	 * too soon after the last high one for the mouse to get down there.
+	 */
+	@Test
+	void chunkClearableFromRestIsNotClearableFromPreviousExit() {
+		ReachabilityOracle oracle = new ReachabilityOracle(WIDTH, HEIGHT);
+		LevelChunk high = chunk(0, 40, 100, 170, null, null);
+		long[] exit = oracle.findExit(null, high);
+		assertNotNull(exit);
+		high = chunk(0, 40, 100, 170, null, exit);
+
+		LevelChunk low = chunk(1, 300, 450, 520, exit, null);
+		assertTrue(oracle.isClearable(low));
+		assertTrue(oracle.isClearable(null, low));
+		assertFalse(oracle.isClearable(high, low));
+	}
+}